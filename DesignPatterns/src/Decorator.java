@@ -1,5 +1,10 @@
 package DesignPatterns;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 interface Coffee {
     String getDescription();
     double getCost();
@@ -22,12 +27,27 @@ abstract class CoffeeDecorator implements Coffee {
         this.coffee = coffee;
     }
 
-    public String getDescription() {
-        return coffee.getDescription();
+    // Built from the add-on hooks, so a chain and its compiled PricedCoffee always agree
+    public final String getDescription() {
+        String name = getAddOnName();
+        return name == null ? coffee.getDescription() : coffee.getDescription() + ", " + name;
     }
 
-    public double getCost() {
-        return coffee.getCost();
+    public final double getCost() {
+        return coffee.getCost() + getAddOnCost();
+    }
+
+    public Coffee getWrapped() {
+        return coffee;
+    }
+
+    // What this decorator adds; PricedCoffee.compile reads these instead of walking the chain again
+    public String getAddOnName() {
+        return null; // passes the wrapped description through
+    }
+
+    public double getAddOnCost() {
+        return 0;
     }
 }
 
@@ -36,12 +56,83 @@ class MilkDecorator extends CoffeeDecorator {
         super(coffee);
     }
 
+    public String getAddOnName() {
+        return "Milk";
+    }
+
+    public double getAddOnCost() {
+        return 1.5;
+    }
+}
+
+// A decorator chain compiled into one immutable item: the chain is walked once, the
+// cost summed in the same order the chain would add it and the description built with
+// a single StringBuilder, so getCost and getDescription just return fields.
+// Structurally identical chains compile to the same interned instance while fewer than
+// MAX_INTERNED distinct items are interned; past that cap a chain not yet interned compiles
+// to a fresh instance each time, with the same description and cost but not ==.
+final class PricedCoffee implements Coffee {
+    private static final int MAX_INTERNED = 4096;
+    private static final Map<String, PricedCoffee> interned = new ConcurrentHashMap<>();
+
+    private final String description;
+    private final double cost;
+
+    private PricedCoffee(String description, double cost) {
+        this.description = description;
+        this.cost = cost;
+    }
+
+    public static PricedCoffee compile(Coffee coffee) {
+        if (coffee instanceof PricedCoffee priced) {
+            return priced;
+        }
+        List<CoffeeDecorator> decorators = new ArrayList<>();
+        Coffee base = coffee;
+        while (base instanceof CoffeeDecorator decorator) {
+            decorators.add(decorator);
+            base = decorator.getWrapped();
+        }
+
+        String baseDescription = base.getDescription();
+        double cost = base.getCost();
+        int length = baseDescription.length();
+        for (CoffeeDecorator decorator : decorators) {
+            String name = decorator.getAddOnName();
+            if (name != null) {
+                length += name.length() + 2;
+            }
+        }
+        StringBuilder description = new StringBuilder(length).append(baseDescription);
+        for (int i = decorators.size() - 1; i >= 0; i--) {
+            CoffeeDecorator decorator = decorators.get(i);
+            String name = decorator.getAddOnName();
+            if (name != null) {
+                description.append(", ").append(name);
+            }
+            cost += decorator.getAddOnCost();
+        }
+
+        // Items with the same description and cost are interchangeable, so they share one instance
+        String key = description.append('|').append(Double.doubleToLongBits(cost)).toString();
+        PricedCoffee existing = interned.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        PricedCoffee compiled = new PricedCoffee(key.substring(0, length), cost);
+        if (interned.size() >= MAX_INTERNED) {
+            return compiled;
+        }
+        existing = interned.putIfAbsent(key, compiled);
+        return existing != null ? existing : compiled;
+    }
+
     public String getDescription() {
-        return coffee.getDescription() + ", Milk";
+        return description;
     }
 
     public double getCost() {
-        return coffee.getCost() + 1.5;
+        return cost;
     }
 }
 
@@ -51,5 +142,16 @@ public class Decorator {
         Coffee milkCoffee = new MilkDecorator(coffee);
         System.out.println(milkCoffee.getDescription() + " costs $" + milkCoffee.getCost());
         // Outputs: Simple Coffee, Milk costs $6.5
+
+        // Compiled once, priced without walking the chain again
+        Coffee deep = coffee;
+        for (int i = 0; i < 100; i++) {
+            deep = new MilkDecorator(deep);
+        }
+        PricedCoffee priced = PricedCoffee.compile(deep);
+        System.out.println(priced.getCost() == deep.getCost()
+                && priced.getDescription().equals(deep.getDescription())); // Outputs: true
+        System.out.println(PricedCoffee.compile(new MilkDecorator(new SimpleCoffee())) == PricedCoffee.compile(milkCoffee));
+        // Outputs: true
     }
 }
@@ -1,18 +1,303 @@
 package DesignPatterns;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
 interface IObserver {
     void update(float temperature);
+
+    // Called by the EventBus with everything queued since the last delivery
+    default void updateBatch(float[] temperatures, int count) {
+        for (int i = 0; i < count; i++) {
+            update(temperatures[i]);
+        }
+    }
+}
+
+// What a publisher does when a subscriber's queue is full
+enum Backpressure {
+    DROP,     // discard the new value and count it
+    BLOCK,    // wait for the subscriber to make room
+    CONFLATE  // keep only the latest value; the subscriber never falls behind
+}
+
+// Bounded lock-free queue for many publishers and one consumer (Vyukov's design):
+// each slot's sequence number says whether it is free for position p (== p) or
+// holds the value published at p (== p + 1)
+class EventQueue {
+    private final int mask;
+    private final float[] values;
+    private final long[] stamps;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // consumer only
+
+    public EventQueue(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two, at least 2: " + capacity);
+        }
+        mask = capacity - 1;
+        values = new float[capacity];
+        stamps = new long[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(float value, long stamp) {
+        long position = tail.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long diff = sequences.get(slot) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    values[slot] = value;
+                    stamps[slot] = stamp;
+                    sequences.set(slot, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                return false; // full
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    // Moves up to max values into the arrays; consumer thread only
+    public int drain(float[] valuesOut, long[] stampsOut, int max) {
+        int count = 0;
+        while (count < max) {
+            int slot = (int) head & mask;
+            if (sequences.get(slot) != head + 1) break;
+            valuesOut[count] = values[slot];
+            stampsOut[count] = stamps[slot];
+            sequences.set(slot, head + mask + 1);
+            head++;
+            count++;
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+}
+
+// Fan-out of temperature updates to IObservers without running them on the publisher's
+// thread. Each subscription has its own bounded queue and a virtual thread that delivers
+// queued values in batches, so a slow observer only fills its own queue; what happens
+// then is its Backpressure policy. Subscribing is safe while publishing, and so is
+// closing: close() waits for publish and subscribe calls already past their closed
+// check, and the dispatchers keep draining until those are done.
+class EventBus implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int BATCH = 64;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final LongAdder publishes = new LongAdder();
+    private final LongAdder publishNanos = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger(); // publish/subscribe calls under way
+    private volatile boolean closed;
+    private volatile boolean quiescent; // closed, and no call is in flight any more
+
+    // Counts since subscribing; latencies in microseconds, from publish to hand-off
+    record Stats(long published, long delivered, long dropped, long conflated, long failed,
+                 double meanLatencyMicros, double maxLatencyMicros) {}
+
+    // CONFLATE's pending value, swapped in whole so a value never pairs with another's stamp
+    private record Latest(float value, long stamp) {}
+
+    class Subscription {
+        private final IObserver observer;
+        private final Backpressure policy;
+        private final EventQueue queue;
+        private final AtomicReference<Latest> latest = new AtomicReference<>(); // CONFLATE only
+        private final Thread dispatcher;
+        private volatile boolean waiting;
+
+        private final LongAdder published = new LongAdder();
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder conflated = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder latencyNanos = new LongAdder();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+        Subscription(IObserver observer, int capacity, Backpressure policy) {
+            this.observer = observer;
+            this.policy = policy;
+            this.queue = policy == Backpressure.CONFLATE ? null : new EventQueue(capacity);
+            this.dispatcher = Thread.ofVirtual().name("event-bus-" + observer.getClass().getSimpleName())
+                    .unstarted(this::dispatch);
+        }
+
+        void offer(float value, long stamp) {
+            published.increment();
+            if (policy == Backpressure.CONFLATE) {
+                if (latest.getAndSet(new Latest(value, stamp)) != null) {
+                    conflated.increment();
+                }
+            } else if (!queue.offer(value, stamp)) {
+                if (policy == Backpressure.DROP) {
+                    dropped.increment();
+                    return;
+                }
+                while (!queue.offer(value, stamp)) {
+                    // The dispatcher outlives every publish in flight, even during close(),
+                    // so only a dispatcher that is gone leaves nobody to make room
+                    if (!dispatcher.isAlive()) {
+                        throw new IllegalStateException("Dispatcher of " + observer.getClass().getSimpleName() + " has stopped");
+                    }
+                    wake();
+                    LockSupport.parkNanos(1_000);
+                }
+            }
+            wake();
+        }
+
+        private void wake() {
+            if (waiting) LockSupport.unpark(dispatcher);
+        }
+
+        private boolean hasPending() {
+            return queue == null ? latest.get() != null : !queue.isEmpty();
+        }
+
+        private void dispatch() {
+            float[] values = new float[BATCH];
+            long[] stamps = new long[BATCH];
+            while (true) {
+                int count;
+                if (queue == null) {
+                    Latest taken = latest.getAndSet(null);
+                    count = taken != null ? 1 : 0;
+                    if (taken != null) {
+                        values[0] = taken.value();
+                        stamps[0] = taken.stamp();
+                    }
+                } else {
+                    count = queue.drain(values, stamps, BATCH);
+                }
+                if (count > 0) {
+                    deliver(values, stamps, count);
+                    continue;
+                }
+                // Nothing can be queued once no publish is in flight, so this drain was the last
+                if (quiescent) return;
+                // Publishers check waiting after queueing, so one of the two always sees the other
+                waiting = true;
+                if (!hasPending() && !quiescent) LockSupport.park(this);
+                waiting = false;
+            }
+        }
+
+        private void deliver(float[] values, long[] stamps, int count) {
+            long now = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                long latency = now - stamps[i];
+                latencyNanos.add(latency);
+                maxLatencyNanos.accumulateAndGet(latency, Math::max);
+            }
+            try {
+                observer.updateBatch(values, count);
+                delivered.add(count);
+            } catch (Throwable e) {
+                // A failing observer loses the batch but keeps its subscription; even an Error
+                // must not stop the dispatcher, or BLOCK publishers would wait on it forever
+                failed.add(count);
+            }
+        }
+
+        public Stats stats() {
+            long handed = delivered.sum() + failed.sum();
+            return new Stats(published.sum(), delivered.sum(), dropped.sum(), conflated.sum(), failed.sum(),
+                    handed == 0 ? 0 : latencyNanos.sum() / 1e3 / handed, maxLatencyNanos.get() / 1e3);
+        }
+    }
+
+    public Subscription subscribe(IObserver observer) {
+        return subscribe(observer, DEFAULT_CAPACITY, Backpressure.BLOCK);
+    }
+
+    public Subscription subscribe(IObserver observer, int capacity, Backpressure policy) {
+        inFlight.incrementAndGet();
+        try {
+            if (closed) throw new IllegalStateException("Event bus is closed");
+            Subscription subscription = new Subscription(observer, capacity, policy);
+            // Started first, so a publisher never finds its dispatcher not yet alive
+            subscription.dispatcher.start();
+            subscriptions.add(subscription);
+            return subscription;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    // The in-flight count goes up before closed is read and close() sets closed before it
+    // reads the count, so either this call sees closed or close() waits for it
+    public void publish(float temperature) {
+        inFlight.incrementAndGet();
+        try {
+            if (closed) throw new IllegalStateException("Event bus is closed");
+            long start = System.nanoTime();
+            for (Subscription subscription : subscriptions) {
+                subscription.offer(temperature, start);
+            }
+            publishes.increment();
+            publishNanos.add(System.nanoTime() - start);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    // Mean time a publish call spends queueing for every subscriber
+    public double meanPublishMicros() {
+        long count = publishes.sum();
+        return count == 0 ? 0 : publishNanos.sum() / 1e3 / count;
+    }
+
+    // Stops accepting values, lets publish calls already under way finish, and waits for
+    // every subscriber to receive what is queued
+    @Override
+    public void close() {
+        closed = true;
+        while (inFlight.get() != 0) {
+            LockSupport.parkNanos(1_000);
+        }
+        quiescent = true;
+        for (Subscription subscription : subscriptions) {
+            LockSupport.unpark(subscription.dispatcher);
+        }
+        try {
+            for (Subscription subscription : subscriptions) {
+                subscription.dispatcher.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
 
-class WeatherStation {
-    private final List<IObserver> observers = new ArrayList<>();
+class WeatherStation implements AutoCloseable {
+    private final EventBus bus = new EventBus();
     private float temperature;
 
     public void addObserver(IObserver observer) {
-        observers.add(observer);
+        bus.subscribe(observer);
+    }
+
+    public EventBus.Subscription addObserver(IObserver observer, int capacity, Backpressure policy) {
+        return bus.subscribe(observer, capacity, policy);
     }
 
     public void setTemperature(float temperature) {
@@ -20,10 +305,17 @@ class WeatherStation {
         notifyObservers();
     }
 
+    public EventBus getBus() {
+        return bus;
+    }
+
     private void notifyObservers() {
-        for (IObserver observer : observers) {
-            observer.update(temperature);
-        }
+        bus.publish(temperature);
+    }
+
+    @Override
+    public void close() {
+        bus.close();
     }
 }
 
@@ -33,11 +325,44 @@ class TemperatureDisplay implements IObserver {
     }
 }
 
+// Market-data style consumer that only needs the newest value of each batch
+class SlowTicker implements IObserver {
+    private volatile float last;
+
+    public void update(float temperature) {
+        last = temperature;
+        try {
+            TimeUnit.MICROSECONDS.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public float getLast() {
+        return last;
+    }
+}
+
 public class Observer {
     public static void main(String[] args) {
+        try (WeatherStation station = new WeatherStation()) {
+            TemperatureDisplay display = new TemperatureDisplay();
+            station.addObserver(display);
+            station.setTemperature(25.0f); // Outputs: Temperature is now: 25.0
+        }
+
+        // A slow observer under each policy, fed faster than it can keep up
         WeatherStation station = new WeatherStation();
-        TemperatureDisplay display = new TemperatureDisplay();
-        station.addObserver(display);
-        station.setTemperature(25.0f); // Outputs: Temperature is now: 25.0
+        EventBus.Subscription dropping = station.addObserver(new SlowTicker(), 256, Backpressure.DROP);
+        EventBus.Subscription conflating = station.addObserver(new SlowTicker(), 2, Backpressure.CONFLATE);
+        EventBus.Subscription blocking = station.addObserver(new SlowTicker(), 256, Backpressure.BLOCK);
+        for (int i = 0; i < 20_000; i++) {
+            station.setTemperature(20 + i % 100 / 10f);
+        }
+        station.close();
+        System.out.printf("Mean publish: %.2f us%n", station.getBus().meanPublishMicros());
+        System.out.println("DROP:     " + dropping.stats());
+        System.out.println("CONFLATE: " + conflating.stats());
+        System.out.println("BLOCK:    " + blocking.stats());
     }
 }
@@ -0,0 +1,63 @@
+package finance;
+
+import java.util.SplittableRandom;
+
+// Monte Carlo that sizes itself: batches of paths are simulated until the confidence
+// interval of the mean final balance is within a target relative error, or a hard
+// cap on paths or wall time is reached. Each batch is a ParallelMonteCarlo run with
+// its own seed split from the user's seed, so the batch schedule (and the result)
+// is reproducible for a given seed and kernel unless the time cap cuts a run short.
+final class AdaptiveMonteCarlo {
+    static final long MIN_BATCH = ParallelMonteCarlo.BLOCK_PATHS;
+
+    private AdaptiveMonteCarlo() {}
+
+    enum StopReason { CONVERGED, PATH_CAP, TIME_CAP }
+
+    record Result(MonteCarloStats stats, long paths, int batches, double seconds,
+                  double halfWidth, StopReason reason) {
+        double relativeError() {
+            return stats.mean() == 0 ? Double.POSITIVE_INFINITY : halfWidth / Math.abs(stats.mean());
+        }
+    }
+
+    static Result run(double initial, int years, double targetRelativeError, double confidence,
+                      long maxPaths, double maxSeconds, long seed, PathKernel kernel) {
+        if (targetRelativeError <= 0) throw new IllegalArgumentException("Target relative error must be positive");
+        if (confidence <= 0 || confidence >= 1) throw new IllegalArgumentException("Confidence level must be in (0, 1)");
+        if (maxPaths < 2) throw new IllegalArgumentException("Path cap must allow at least two paths");
+        if (maxSeconds <= 0) throw new IllegalArgumentException("Time cap must be positive");
+
+        double z = VarianceReduction.inverseNormal(0.5 + confidence / 2);
+        int threads = Runtime.getRuntime().availableProcessors();
+        SplittableRandom seeds = new SplittableRandom(seed);
+        MonteCarloStats total = new MonteCarloStats();
+        long start = System.nanoTime();
+        long batch = Math.min(maxPaths, MIN_BATCH * threads);
+        int batches = 0;
+
+        while (true) {
+            total.merge(ParallelMonteCarlo.run(initial, years, batch, seeds.nextLong(), threads, kernel, null));
+            batches++;
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            double halfWidth = z * total.standardError();
+
+            StopReason reason = null;
+            if (halfWidth <= targetRelativeError * Math.abs(total.mean())) reason = StopReason.CONVERGED;
+            else if (total.count() >= maxPaths) reason = StopReason.PATH_CAP;
+            else if (elapsed >= maxSeconds) reason = StopReason.TIME_CAP;
+            if (reason != null) {
+                return new Result(total, total.count(), batches, elapsed, halfWidth, reason);
+            }
+
+            // Paths still needed at the current variance, at most doubling the run per batch,
+            // and no more than the measured throughput can finish before the time cap
+            double target = targetRelativeError * Math.abs(total.mean()) / z;
+            double needed = total.sampleVariance() / (target * target) - total.count();
+            long next = (long) Math.min(Math.max(needed * 1.1, MIN_BATCH), total.count());
+            double rate = total.count() / elapsed;
+            next = Math.min(next, (long) Math.max(MIN_BATCH, rate * (maxSeconds - elapsed)));
+            batch = Math.min(next, maxPaths - total.count());
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package finance;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Budget allocation over a tree of categories, in integer cents.
+// Every node's amount is split between its children in proportion to their priorities
+// (the menu's original proportional rule), but each child stays within its own
+// min/max and whatever its subtree can absorb: child i gets clamp(lambda * priority_i,
+// low_i, high_i) with lambda chosen so the shares add up to the parent's amount (water
+// filling). Shares are then rounded down to cents and the leftover cents go to the
+// largest fractions, so children always add up exactly to their parent.
+// A split depends only on the parent's amount and its children's settings, so changing
+// a category re-splits from the lowest ancestor that can be affected and only descends
+// into children whose amount actually changed.
+final class BudgetAllocator {
+    static final long UNBOUNDED = Long.MAX_VALUE;
+
+    private final String[] names;
+    private final Map<String, Integer> index; // category by name
+    private final int[] parents;     // -1 for top-level categories
+    private final int[] firstChild;  // children of node v are childList[firstChild[v] .. firstChild[v + 1])
+    private final int[] childList;
+    private final double[] priorities;
+    private final long[] minCents;
+    private final long[] maxCents;
+    private final long[] lowCents;   // effective bounds: own caps intersected with what the subtree can take
+    private final long[] highCents;
+    private final long[] amounts;
+    private final int root;          // virtual node holding the total, index n
+    private final boolean[] onPath;  // ancestors of an updated category, whose splits must be redone
+    private final boolean[] changed; // amount changed by the last split of its parent
+    private long splits;
+
+    // Scratch for the children of one node
+    private long[] cents = new long[0];
+    private double[] breaks = new double[0];
+    private long[] order = new long[0];
+
+    BudgetAllocator(String[] names, int[] parents, double[] priorities, long[] minCents, long[] maxCents) {
+        this(names, index(names), parents, priorities, minCents, maxCents);
+    }
+
+    private BudgetAllocator(String[] names, Map<String, Integer> index, int[] parents, double[] priorities,
+                            long[] minCents, long[] maxCents) {
+        int n = names.length;
+        if (parents.length != n || priorities.length != n || minCents.length != n || maxCents.length != n) {
+            throw new IllegalArgumentException("Every category needs a parent, priority, minimum and maximum");
+        }
+        this.names = names;
+        this.index = index;
+        this.parents = parents;
+        this.priorities = priorities;
+        this.minCents = minCents;
+        this.maxCents = maxCents;
+        this.root = n;
+        for (int v = 0; v < n; v++) {
+            if (parents[v] < -1 || parents[v] >= n || parents[v] == v) {
+                throw new IllegalArgumentException("Category " + names[v] + " has an invalid parent");
+            }
+            checkSettings(v, priorities[v], minCents[v], maxCents[v]);
+        }
+
+        // Children in CSR form, in input order
+        this.firstChild = new int[n + 2];
+        for (int v = 0; v < n; v++) firstChild[parentOf(v) + 1]++;
+        for (int v = 0; v <= n; v++) firstChild[v + 1] += firstChild[v];
+        this.childList = new int[n];
+        int[] next = Arrays.copyOf(firstChild, n + 1);
+        for (int v = 0; v < n; v++) childList[next[parentOf(v)]++] = v;
+
+        this.lowCents = new long[n + 1];
+        this.highCents = new long[n + 1];
+        this.amounts = new long[n + 1];
+        this.onPath = new boolean[n + 1];
+        this.changed = new boolean[n + 1];
+        int[] postorder = postorder();
+        if (postorder.length != n + 1) throw new IllegalArgumentException("Category parents form a cycle");
+        for (int v : postorder) updateBounds(v);
+    }
+
+    // Flat categories without caps, as entered in the menu
+    static BudgetAllocator flat(String[] names, double[] priorities) {
+        int n = names.length;
+        int[] parents = new int[n];
+        Arrays.fill(parents, -1);
+        long[] max = new long[n];
+        Arrays.fill(max, UNBOUNDED);
+        return new BudgetAllocator(names, parents, priorities, new long[n], max);
+    }
+
+    // name,parent,priority,min,max per line; parent, min and max may be empty, amounts in
+    // dollars. Parents may appear after their children. Lines starting with # are skipped.
+    static BudgetAllocator load(Path path) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        Map<String, Integer> index = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String[] fields = line.split(",", -1);
+                if (fields.length < 3) throw new IllegalArgumentException("Expected name,parent,priority[,min,max]: " + line);
+                String name = fields[0].trim();
+                if (index.putIfAbsent(name, rows.size()) != null) throw new IllegalArgumentException("Duplicate category: " + name);
+                rows.add(fields);
+            }
+        }
+        int n = rows.size();
+        String[] names = new String[n];
+        int[] parents = new int[n];
+        double[] priorities = new double[n];
+        long[] min = new long[n];
+        long[] max = new long[n];
+        for (int v = 0; v < n; v++) {
+            String[] fields = rows.get(v);
+            names[v] = fields[0].trim();
+            String parent = fields[1].trim();
+            if (parent.isEmpty()) {
+                parents[v] = -1;
+            } else {
+                Integer p = index.get(parent);
+                if (p == null) throw new IllegalArgumentException("Unknown parent category: " + parent);
+                parents[v] = p;
+            }
+            priorities[v] = Double.parseDouble(fields[2].trim());
+            min[v] = fields.length > 3 && !fields[3].isBlank() ? toCents(Double.parseDouble(fields[3].trim())) : 0;
+            max[v] = fields.length > 4 && !fields[4].isBlank() ? toCents(Double.parseDouble(fields[4].trim())) : UNBOUNDED;
+        }
+        return new BudgetAllocator(names, index, parents, priorities, min, max);
+    }
+
+    // The first category of each name, as a lookup by name would find it
+    private static Map<String, Integer> index(String[] names) {
+        Map<String, Integer> index = new HashMap<>(names.length * 4 / 3 + 1);
+        for (int v = 0; v < names.length; v++) index.putIfAbsent(names[v], v);
+        return index;
+    }
+
+    static long toCents(double dollars) {
+        if (!(dollars >= 0) || dollars > 9e13) throw new IllegalArgumentException("Invalid amount: " + dollars);
+        return Math.round(dollars * 100);
+    }
+
+    void write(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            for (int v = 0; v < names.length; v++) {
+                writer.write(names[v] + "," + formatCents(amounts[v]));
+                writer.newLine();
+            }
+        }
+    }
+
+    static String formatCents(long cents) {
+        return cents / 100 + "." + (cents % 100 < 10 ? "0" : "") + cents % 100;
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    String name(int category) {
+        return names[category];
+    }
+
+    int parent(int category) {
+        return parents[category];
+    }
+
+    long amount(int category) {
+        return amounts[category];
+    }
+
+    long total() {
+        return amounts[root];
+    }
+
+    // Number of nodes whose children were re-split since the last call
+    long takeSplitCount() {
+        long count = splits;
+        splits = 0;
+        return count;
+    }
+
+    int indexOf(String name) {
+        Integer v = index.get(name);
+        if (v == null) throw new IllegalArgumentException("Unknown category: " + name);
+        return v;
+    }
+
+    // Full allocation of a new total
+    void allocate(long totalCents) {
+        if (totalCents < lowCents[root] || totalCents > highCents[root]) {
+            throw new IllegalArgumentException(String.format("A total of $%s is outside what the categories allow ($%s to %s)",
+                    formatCents(totalCents), formatCents(lowCents[root]),
+                    highCents[root] == UNBOUNDED ? "unlimited" : "$" + formatCents(highCents[root])));
+        }
+        amounts[root] = totalCents;
+        resplit(root, true);
+    }
+
+    // Changes one category and reallocates only what it can affect. On an infeasible
+    // change the previous settings are restored and an IllegalArgumentException is thrown.
+    void update(int category, double priority, long min, long max) {
+        checkSettings(category, priority, min, max);
+        double oldPriority = priorities[category];
+        long oldMin = minCents[category];
+        long oldMax = maxCents[category];
+        priorities[category] = priority;
+        minCents[category] = min;
+        maxCents[category] = max;
+
+        int splitRoot = parentOf(category);
+        try {
+            // Effective bounds change upwards only as far as they actually change, and the
+            // split above the highest changed node is the first one that can differ
+            for (int v = category; updateBounds(v) && v != root; v = parentOf(v)) {
+                splitRoot = parentOf(v);
+            }
+            if (amounts[root] < lowCents[root] || amounts[root] > highCents[root]) {
+                throw new IllegalArgumentException("The total no longer fits the category limits after changing " + names[category]);
+            }
+            for (int v = parentOf(category); v != splitRoot; v = parentOf(v)) onPath[v] = true;
+            resplit(splitRoot, false);
+        } catch (IllegalArgumentException e) {
+            update(category, oldPriority, oldMin, oldMax);
+            throw e;
+        } finally {
+            for (int v = parentOf(category); v != splitRoot; v = parentOf(v)) onPath[v] = false;
+        }
+    }
+
+    private void checkSettings(int v, double priority, long min, long max) {
+        if (!(priority > 0) || Double.isInfinite(priority)) {
+            throw new IllegalArgumentException("Priority of " + names[v] + " must be positive");
+        }
+        if (min < 0 || max < min) throw new IllegalArgumentException("Limits of " + names[v] + " must satisfy 0 <= min <= max");
+    }
+
+    private int parentOf(int v) {
+        return parents[v] < 0 ? root : parents[v];
+    }
+
+    private int[] postorder() {
+        int[] stack = new int[root + 1];
+        int[] out = new int[root + 1];
+        int[] cursor = Arrays.copyOf(firstChild, root + 1);
+        int depth = 0;
+        int count = 0;
+        stack[0] = root;
+        while (depth >= 0) {
+            int v = stack[depth];
+            if (cursor[v] < firstChild[v + 1]) {
+                stack[++depth] = childList[cursor[v]++];
+            } else {
+                out[count++] = v;
+                depth--;
+            }
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    // Recomputes the effective bounds of v from its caps and its children; true if they changed
+    private boolean updateBounds(int v) {
+        long low = 0;
+        long high = firstChild[v] == firstChild[v + 1] ? UNBOUNDED : 0;
+        for (int c = firstChild[v]; c < firstChild[v + 1]; c++) {
+            int child = childList[c];
+            low += lowCents[child];
+            high = high == UNBOUNDED || highCents[child] == UNBOUNDED ? UNBOUNDED : high + highCents[child];
+        }
+        if (v != root) {
+            low = Math.max(low, minCents[v]);
+            high = Math.min(high, maxCents[v]);
+            if (low > high) {
+                throw new IllegalArgumentException("Category " + names[v] + " cannot satisfy its own limits and its subcategories' limits");
+            }
+        }
+        boolean changed = low != lowCents[v] || high != highCents[v];
+        lowCents[v] = low;
+        highCents[v] = high;
+        return changed;
+    }
+
+    // Splits v's amount between its children, then descends into those whose amount changed
+    // or whose own split may have changed (the path to an updated category)
+    private void resplit(int start, boolean everything) {
+        int[] stack = new int[16];
+        int depth = 0;
+        stack[0] = start;
+        while (depth >= 0) {
+            int v = stack[depth--];
+            split(v);
+            for (int c = firstChild[v]; c < firstChild[v + 1]; c++) {
+                int child = childList[c];
+                if (firstChild[child] == firstChild[child + 1]) continue;
+                if (!everything && !changed[child] && !onPath[child]) continue;
+                if (depth + 1 == stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[++depth] = child;
+            }
+        }
+    }
+
+    private void split(int v) {
+        splits++;
+        int from = firstChild[v];
+        int m = firstChild[v + 1] - from;
+        if (m == 0) return;
+        long amount = amounts[v];
+        if (cents.length < m) {
+            cents = new long[m];
+            order = new long[m];
+            breaks = new double[2 * m + 1];
+        }
+
+        // lambda where the sum of clamp(lambda * w, low, high) reaches the amount: binary
+        // search over the sorted breakpoints, then linear interpolation inside the bracket
+        int b = 0;
+        breaks[b++] = 0;
+        double freeWeight = 0;
+        for (int i = 0; i < m; i++) {
+            int child = childList[from + i];
+            breaks[b++] = lowCents[child] / priorities[child];
+            if (highCents[child] != UNBOUNDED) breaks[b++] = highCents[child] / priorities[child];
+            else freeWeight += priorities[child];
+        }
+        Arrays.sort(breaks, 0, b);
+        int lo = 0;
+        int hi = b - 1;
+        double lambda;
+        double last = filled(from, m, breaks[hi]);
+        if (last < amount) {
+            // Past the last cap only the unbounded children still grow
+            lambda = breaks[hi] + (amount - last) / freeWeight;
+        } else {
+            while (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                if (filled(from, m, breaks[mid]) < amount) lo = mid;
+                else hi = mid;
+            }
+            double fLo = filled(from, m, breaks[lo]);
+            double fHi = filled(from, m, breaks[hi]);
+            lambda = fHi == fLo ? breaks[lo] : breaks[lo] + (amount - fLo) * (breaks[hi] - breaks[lo]) / (fHi - fLo);
+        }
+
+        // Round down, then hand the leftover cents to the largest fractions (ties to the
+        // first child), never pushing a child past its effective bounds. Sort keys pack
+        // the fraction above the reversed child position.
+        long leftover = amount;
+        for (int i = 0; i < m; i++) {
+            int child = childList[from + i];
+            double share = share(child, lambda);
+            long whole = Math.max(lowCents[child], Math.min(highCents[child], (long) Math.floor(share)));
+            double fraction = Math.max(0, Math.min(1, share - whole));
+            order[i] = (long) (fraction * (1L << 31)) << 31 | (m - 1 - i);
+            cents[i] = whole;
+            leftover -= whole;
+        }
+        Arrays.sort(order, 0, m);
+        while (leftover != 0) {
+            boolean moved = false;
+            for (int r = 0; r < m && leftover != 0; r++) {
+                // Largest fractions first when adding, smallest first when taking back
+                long key = leftover > 0 ? order[m - 1 - r] : order[r];
+                int i = m - 1 - (int) (key & ((1L << 31) - 1));
+                int child = childList[from + i];
+                if (leftover > 0 && cents[i] < highCents[child]) {
+                    cents[i]++;
+                    leftover--;
+                    moved = true;
+                } else if (leftover < 0 && cents[i] > lowCents[child]) {
+                    cents[i]--;
+                    leftover++;
+                    moved = true;
+                }
+            }
+            if (!moved) {
+                throw new IllegalStateException("Cannot place " + leftover + " cents under " + (v == root ? "the total" : names[v]));
+            }
+        }
+
+        for (int i = 0; i < m; i++) {
+            int child = childList[from + i];
+            changed[child] = amounts[child] != cents[i];
+            amounts[child] = cents[i];
+        }
+    }
+
+    private double filled(int from, int m, double lambda) {
+        double total = 0;
+        for (int i = 0; i < m; i++) {
+            total += share(childList[from + i], lambda);
+        }
+        return total;
+    }
+
+    private double share(int child, double lambda) {
+        double share = lambda * priorities[child];
+        if (share < lowCents[child]) return lowCents[child];
+        if (highCents[child] != UNBOUNDED && share > highCents[child]) return highCents[child];
+        return share;
+    }
+}
@@ -0,0 +1,142 @@
+package finance;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Backtests the moving-average crossover for every (short, long) pair of a grid in
+// one pass over the prices. A prefix-sum array is built once, after which any window
+// mean is (P[t + 1] - P[t + 1 - period]) / period, O(1) per point and period. The
+// prefix sums are kept as double-double (TwoSum), so window sums near the end of a
+// million-bar series are as accurate as MovingAverageEngine's compensated sums.
+// They are not rounded the same way, though: where the short and long averages are
+// equal or within a few ulps of each other, a pair can count a BUY or SELL that
+// FinanceAnalyzer.crossoverSignals reports as HOLD, or the other way round. On
+// 0.1 * (i % 7) + 0.3, sma:16/sma:37 gets 2 SELLs here and none from crossoverSignals.
+// Rankings of pairs whose averages keep touching should be read with that in mind.
+// Each pair trades one share: BUY opens a position when flat, SELL closes it, and
+// a position still open at the end is valued at the last price.
+final class CrossoverSweep {
+    private final double[] prices;
+    private final double[] prefixHigh;
+    private final double[] prefixLow;
+
+    // Signal counts and P&L of one pair; profit is per share
+    record Result(int shortPeriod, int longPeriod, int buys, int sells, int trades, double profit) {}
+
+    CrossoverSweep(double[] prices) {
+        this.prices = prices;
+        int n = prices.length;
+        prefixHigh = new double[n + 1];
+        prefixLow = new double[n + 1];
+        double high = 0;
+        double low = 0;
+        for (int i = 0; i < n; i++) {
+            double sum = high + prices[i];
+            double virtual = sum - high;
+            low += (high - (sum - virtual)) + (prices[i] - virtual);
+            high = sum;
+            prefixHigh[i + 1] = high;
+            prefixLow[i + 1] = low;
+        }
+    }
+
+    int size() {
+        return prices.length;
+    }
+
+    // Every pair with shortPeriod < longPeriod <= number of prices, evaluated in
+    // parallel and ranked by profit, then by fewer trades
+    List<Result> run(int[] shortPeriods, int[] longPeriods) {
+        List<int[]> pairs = new ArrayList<>();
+        for (int s : shortPeriods) {
+            for (int l : longPeriods) {
+                if (s <= 0 || l <= 0) throw new IllegalArgumentException("Periods must be positive integers.");
+                if (s < l && l <= prices.length) pairs.add(new int[] {s, l});
+            }
+        }
+        if (pairs.isEmpty()) {
+            throw new IllegalArgumentException("No pair in the grid has short < long <= number of data points ("
+                    + prices.length + ").");
+        }
+        return IntStream.range(0, pairs.size()).parallel()
+                .mapToObj(i -> evaluate(pairs.get(i)[0], pairs.get(i)[1]))
+                .sorted(Comparator.comparingDouble(Result::profit).reversed().thenComparingInt(Result::trades))
+                .toList();
+    }
+
+    // Signals aligned with the batch crossover: the first one is for the bar after the
+    // first full long window. Both means share the prefix entry at t + 1 and are divided
+    // rather than scaled by a reciprocal; ties can still resolve differently from the
+    // batch crossover (see above).
+    Result evaluate(int shortPeriod, int longPeriod) {
+        double[] high = prefixHigh;
+        double[] low = prefixLow;
+        int buys = 0;
+        int sells = 0;
+        int trades = 0;
+        double profit = 0;
+        double entry = Double.NaN;
+        double prevShort = mean(longPeriod - 1, shortPeriod);
+        double prevLong = mean(longPeriod - 1, longPeriod);
+        for (int t = longPeriod; t < prices.length; t++) {
+            double endHigh = high[t + 1];
+            double endLow = low[t + 1];
+            int shortFrom = t + 1 - shortPeriod;
+            int longFrom = t + 1 - longPeriod;
+            double currShort = ((endHigh - high[shortFrom]) + (endLow - low[shortFrom])) / shortPeriod;
+            double currLong = ((endHigh - high[longFrom]) + (endLow - low[longFrom])) / longPeriod;
+            if (prevShort < prevLong && currShort > currLong) {
+                buys++;
+                if (Double.isNaN(entry)) entry = prices[t];
+            } else if (prevShort > prevLong && currShort < currLong) {
+                sells++;
+                if (!Double.isNaN(entry)) {
+                    profit += prices[t] - entry;
+                    trades++;
+                    entry = Double.NaN;
+                }
+            }
+            prevShort = currShort;
+            prevLong = currLong;
+        }
+        if (!Double.isNaN(entry)) profit += prices[prices.length - 1] - entry;
+        return new Result(shortPeriod, longPeriod, buys, sells, trades, profit);
+    }
+
+    // Mean of the period prices ending at index t
+    private double mean(int t, int period) {
+        int from = t + 1 - period;
+        return ((prefixHigh[t + 1] - prefixHigh[from]) + (prefixLow[t + 1] - prefixLow[from])) / period;
+    }
+
+    // "from:to:step", "from:to" (step 1) or a single period
+    static int[] parseRange(String spec) {
+        String[] parts = spec.trim().split(":");
+        if (parts.length > 3) throw new IllegalArgumentException("Expected from:to[:step], got " + spec);
+        int from = Integer.parseInt(parts[0].trim());
+        int to = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : from;
+        int step = parts.length > 2 ? Integer.parseInt(parts[2].trim()) : 1;
+        if (step <= 0) throw new IllegalArgumentException("Step must be positive: " + spec);
+        if (to < from) throw new IllegalArgumentException("Range ends before it starts: " + spec);
+        return IntStream.iterate(from, p -> p <= to, p -> p + step).toArray();
+    }
+
+    static void write(List<Result> results, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("rank,short,long,buys,sells,trades,profit");
+            writer.newLine();
+            for (int i = 0; i < results.size(); i++) {
+                Result r = results.get(i);
+                writer.write(String.format("%d,%d,%d,%d,%d,%d,%.2f", i + 1, r.shortPeriod(), r.longPeriod(),
+                        r.buys(), r.sells(), r.trades(), r.profit()));
+                writer.newLine();
+            }
+        }
+    }
+}
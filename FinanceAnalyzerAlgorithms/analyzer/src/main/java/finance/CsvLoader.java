@@ -0,0 +1,241 @@
+package finance;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Memory-mapped CSV ingest straight into primitive arrays.
+// The file is cut into newline-aligned chunks that are mapped and parsed in
+// parallel: a first pass counts the rows of every chunk, a second pass parses
+// each chunk into its slice of the output arrays. Numbers are parsed from the
+// mapped bytes without creating Strings; only unusual literals (more than 15
+// significant digits, large exponents, NaN, ...) fall back to Double.parseDouble,
+// so the values are always identical to the BufferedReader readers.
+final class CsvLoader {
+    static final int CHUNK_BYTES = 32 << 20;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private CsvLoader() {}
+
+    record ExpenseColumns(double[] amounts, double[] dates) {
+        int size() {
+            return amounts.length;
+        }
+    }
+
+    // One price per line, as in stock_prices.csv
+    static double[] loadPrices(Path path) throws IOException {
+        return load(path, 1)[0];
+    }
+
+    // Prices already read into memory, parsed on the calling thread only; for callers that
+    // schedule reading and parsing themselves, like MultiSymbolBacktest
+    static double[] parsePrices(ByteBuffer bytes) {
+        double[][] columns = new double[1][countRows(bytes)];
+        parseRows(bytes, 0, columns, 0);
+        return columns[0];
+    }
+
+    // amount,date per line, as in expenses.csv
+    static ExpenseColumns loadExpenses(Path path) throws IOException {
+        double[][] columns = load(path, 2);
+        return new ExpenseColumns(columns[0], columns[1]);
+    }
+
+    // Only the rows between two byte offsets, e.g. those appended since an earlier load;
+    // from must be the start of a line
+    static ExpenseColumns loadExpenses(Path path, long from, long to) throws IOException {
+        double[][] columns = load(path, 2, from, to);
+        return new ExpenseColumns(columns[0], columns[1]);
+    }
+
+    private static double[][] load(Path path, int fields) throws IOException {
+        return load(path, fields, 0, Long.MAX_VALUE);
+    }
+
+    private static double[][] load(Path path, int fields, long from, long to) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel, from, Math.min(to, channel.size()));
+            int chunks = bounds.length - 1;
+            MappedByteBuffer[] buffers = new MappedByteBuffer[chunks];
+            for (int c = 0; c < chunks; c++) {
+                buffers[c] = channel.map(FileChannel.MapMode.READ_ONLY, bounds[c], bounds[c + 1] - bounds[c]);
+            }
+
+            int[] rows = new int[chunks + 1];
+            IntStream.range(0, chunks).parallel().forEach(c -> rows[c + 1] = countRows(buffers[c]));
+            for (int c = 0; c < chunks; c++) {
+                if ((long) rows[c] + rows[c + 1] > Integer.MAX_VALUE - 8) {
+                    throw new IOException("Too many rows for an in-memory array: " + path);
+                }
+                rows[c + 1] += rows[c];
+            }
+
+            double[][] columns = new double[fields][rows[chunks]];
+            IntStream.range(0, chunks).parallel().forEach(c -> parseRows(buffers[c], bounds[c], columns, rows[c]));
+            return columns;
+        }
+    }
+
+    // Chunk start offsets, each just past a newline, plus the end offset as the last entry
+    private static long[] chunkBounds(FileChannel channel, long from, long size) throws IOException {
+        if (from > size) throw new IOException("Start offset " + from + " is past the end of the file");
+        int nominal = (int) Math.max(1, (size - from + CHUNK_BYTES - 1) / CHUNK_BYTES);
+        long[] bounds = new long[nominal + 1];
+        bounds[0] = from;
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        int count = 1;
+        for (int c = 1; c < nominal; c++) {
+            long start = Math.max(bounds[count - 1], from + (long) c * CHUNK_BYTES);
+            long boundary = nextLineStart(channel, start, probe);
+            if (boundary >= size) break;
+            if (boundary > bounds[count - 1]) bounds[count++] = boundary;
+        }
+        bounds[count++] = size;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) return channel.size();
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+    }
+
+    private static int countRows(ByteBuffer buffer) {
+        int rows = 0;
+        boolean content = false;
+        for (int i = 0, limit = buffer.limit(); i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                if (content) rows++;
+                content = false;
+            } else if (!isBlank(b)) {
+                content = true;
+            }
+        }
+        return content ? rows + 1 : rows;
+    }
+
+    private static void parseRows(ByteBuffer buffer, long fileOffset, double[][] columns, int row) {
+        int limit = buffer.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') lineEnd++;
+            if (!isBlankRange(buffer, lineStart, lineEnd)) {
+                // Like line.split(","): field i ends at the next comma, extra fields are ignored
+                int fieldStart = lineStart;
+                for (int f = 0; f < columns.length; f++) {
+                    int fieldEnd = fieldStart;
+                    while (fieldEnd < lineEnd && buffer.get(fieldEnd) != ',') fieldEnd++;
+                    if (fieldStart > lineEnd) {
+                        throw new NumberFormatException("Missing field " + (f + 1) + " in row at byte " + (fileOffset + lineStart));
+                    }
+                    columns[f][row] = parseDouble(buffer, fieldStart, fieldEnd);
+                    fieldStart = fieldEnd + 1;
+                }
+                row++;
+            }
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    static double parseDouble(ByteBuffer buffer, int from, int to) {
+        while (from < to && isBlank(buffer.get(from))) from++;
+        while (to > from && isBlank(buffer.get(to - 1))) to--;
+
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int significant = 0;
+        int scale = 0;
+        boolean digits = false;
+        boolean dot = false;
+        for (; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                digits = true;
+                if (mantissa != 0 || b != '0') {
+                    if (++significant > 15) return slowParse(buffer, from, to);
+                    mantissa = mantissa * 10 + (b - '0');
+                }
+                if (dot) scale--;
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (!digits) return slowParse(buffer, from, to);
+
+        if (i < to) {
+            byte b = buffer.get(i);
+            if (b != 'e' && b != 'E') return slowParse(buffer, from, to);
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negativeExponent = buffer.get(i) == '-';
+                i++;
+            }
+            int exponent = 0;
+            int exponentDigits = 0;
+            for (; i < to; i++) {
+                b = buffer.get(i);
+                if (b < '0' || b > '9' || ++exponentDigits > 4) return slowParse(buffer, from, to);
+                exponent = exponent * 10 + (b - '0');
+            }
+            if (exponentDigits == 0) return slowParse(buffer, from, to);
+            scale += negativeExponent ? -exponent : exponent;
+        }
+
+        // Exact mantissa and exact power of ten: one rounding, same result as Double.parseDouble
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (scale >= 0 && scale < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[scale];
+        } else if (scale < 0 && -scale < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-scale];
+        } else {
+            return slowParse(buffer, from, to);
+        }
+        return negative ? -value : value;
+    }
+
+    private static double slowParse(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+    }
+
+    private static boolean isBlankRange(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isBlank(buffer.get(i))) return false;
+        }
+        return true;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
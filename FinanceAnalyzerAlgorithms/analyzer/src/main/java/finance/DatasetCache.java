@@ -0,0 +1,221 @@
+package finance;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Parsed CSV datasets kept between analyses, keyed by path, size and modification
+// time, so an unchanged file is parsed once per process. Entries are evicted least
+// recently used first once their arrays pass the byte bound (-Dfinance.cache.bytes,
+// 256 MB by default). With snapshots on (-Dfinance.snapshots=true or JobRunner
+// --snapshots), a parse also leaves <file>.snapshot next to the CSV: the columns as
+// little-endian doubles, stamped with the CSV's size and mtime, which a later process
+// maps instead of parsing the text again. A snapshot that cannot be written (read-only
+// directory, full disk) is reported once on stderr and the parsed columns are used as
+// usual. The arrays are shared, so callers must not modify them.
+final class DatasetCache {
+    static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+    private static final int SNAPSHOT_MAGIC = 0x53444146; // "FADS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+
+    private static final long maxBytes = Long.getLong("finance.cache.bytes", 256L << 20);
+    private static volatile boolean snapshots = Boolean.getBoolean("finance.snapshots");
+    private static final AtomicBoolean snapshotFailureReported = new AtomicBoolean();
+
+    private static final Map<Key, double[][]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private static long cachedBytes;
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder snapshotHits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    private DatasetCache() {}
+
+    private record Key(Path path, int fields, long size, long modified) {}
+
+    static void enableSnapshots() {
+        snapshots = true;
+    }
+
+    // Same values as CsvLoader.loadPrices
+    static double[] prices(Path file) throws IOException {
+        return load(file, 1)[0];
+    }
+
+    // Same values as CsvLoader.loadExpenses
+    static CsvLoader.ExpenseColumns expenses(Path file) throws IOException {
+        double[][] columns = load(file, 2);
+        return new CsvLoader.ExpenseColumns(columns[0], columns[1]);
+    }
+
+    private static double[][] load(Path file, int fields) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        Key key = new Key(file.toAbsolutePath().normalize(), fields, attributes.size(),
+                attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+        synchronized (DatasetCache.class) {
+            double[][] columns = entries.get(key);
+            if (columns != null) {
+                hits.increment();
+                return columns;
+            }
+        }
+
+        Path snapshot = snapshotFile(file);
+        double[][] columns = snapshots ? readSnapshot(snapshot, key) : null;
+        if (columns != null) {
+            snapshotHits.increment();
+        } else {
+            misses.increment();
+            columns = parse(file, fields);
+            if (snapshots) {
+                try {
+                    writeSnapshot(snapshot, key, columns);
+                } catch (IOException e) {
+                    if (snapshotFailureReported.compareAndSet(false, true)) {
+                        System.err.println("Could not write dataset snapshot " + snapshot + " (" + e
+                                + "); continuing without snapshots where they cannot be written.");
+                    }
+                }
+            }
+        }
+        put(key, columns);
+        return columns;
+    }
+
+    private static double[][] parse(Path file, int fields) throws IOException {
+        if (fields == 1) return new double[][] {CsvLoader.loadPrices(file)};
+        CsvLoader.ExpenseColumns expenses = CsvLoader.loadExpenses(file);
+        return new double[][] {expenses.amounts(), expenses.dates()};
+    }
+
+    private static synchronized void put(Key key, double[][] columns) {
+        long bytes = weight(columns);
+        if (bytes > maxBytes) return;
+        Iterator<Map.Entry<Key, double[][]>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, double[][]> entry = it.next();
+            Key k = entry.getKey();
+            // Older versions of the same file can never be hit again
+            if (k.path().equals(key.path()) && k.fields() == key.fields()) {
+                cachedBytes -= weight(entry.getValue());
+                it.remove();
+            }
+        }
+        entries.put(key, columns);
+        cachedBytes += bytes;
+        Iterator<double[][]> eldest = entries.values().iterator();
+        while (cachedBytes > maxBytes) {
+            cachedBytes -= weight(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    private static long weight(double[][] columns) {
+        return (long) columns.length * columns[0].length * Double.BYTES;
+    }
+
+    static Path snapshotFile(Path file) {
+        return file.resolveSibling(file.getFileName() + SNAPSHOT_SUFFIX);
+    }
+
+    // Header: magic, version, field count, padding, row count, CSV size, CSV mtime; then each column
+    private static double[][] readSnapshot(Path snapshot, Key key) throws IOException {
+        if (!Files.isRegularFile(snapshot)) return null;
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) return null;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) > 0) {}
+            if (header.getInt(0) != SNAPSHOT_MAGIC || header.getInt(4) != VERSION || header.getInt(8) != key.fields()
+                    || header.getLong(24) != key.size() || header.getLong(32) != key.modified()) {
+                return null;
+            }
+            long rows = header.getLong(16);
+            if (rows < 0 || rows > Integer.MAX_VALUE - 8
+                    || channel.size() != HEADER_BYTES + rows * key.fields() * Double.BYTES) {
+                return null;
+            }
+            double[][] columns = new double[key.fields()][(int) rows];
+            long position = HEADER_BYTES;
+            int perMap = Integer.MAX_VALUE / Double.BYTES;
+            for (double[] column : columns) {
+                for (int i = 0; i < column.length; i += perMap) {
+                    int n = Math.min(perMap, column.length - i);
+                    channel.map(FileChannel.MapMode.READ_ONLY, position, (long) n * Double.BYTES)
+                            .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(column, i, n);
+                    position += (long) n * Double.BYTES;
+                }
+            }
+            return columns;
+        }
+    }
+
+    // Written to a temporary file and moved into place, so readers never see half a snapshot
+    private static void writeSnapshot(Path snapshot, Key key, double[][] columns) throws IOException {
+        Path temporary = Files.createTempFile(snapshot.toAbsolutePath().getParent(), snapshot.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(SNAPSHOT_MAGIC).putInt(VERSION).putInt(key.fields()).putInt(0)
+                        .putLong(columns[0].length).putLong(key.size()).putLong(key.modified());
+                for (double[] column : columns) {
+                    for (int i = 0; i < column.length; ) {
+                        int n = Math.min(column.length - i, buffer.remaining() / Double.BYTES);
+                        buffer.asDoubleBuffer().put(column, i, n);
+                        buffer.position(buffer.position() + n * Double.BYTES);
+                        i += n;
+                        buffer.flip();
+                        while (buffer.hasRemaining()) channel.write(buffer);
+                        buffer.clear();
+                    }
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+            try {
+                Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    static synchronized void clear() {
+        entries.clear();
+        cachedBytes = 0;
+    }
+
+    static long hits() {
+        return hits.sum();
+    }
+
+    static long snapshotHits() {
+        return snapshotHits.sum();
+    }
+
+    static long misses() {
+        return misses.sum();
+    }
+
+    static synchronized void printStats(PrintStream out) {
+        out.printf("Dataset cache: %d hits, %d snapshot loads, %d parsed; %d datasets, %.1f MB in memory%n",
+                hits(), snapshotHits(), misses(), entries.size(), cachedBytes / 1e6);
+    }
+}
@@ -0,0 +1,132 @@
+package finance;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Batch comparison of repayment strategies over many portfolios.
+// Input has one portfolio per line: id,monthly payment,balance,rate (%),balance,rate,...
+// Blank lines and lines starting with # are skipped. Portfolios are independent, so
+// they are parsed and planned in parallel; every portfolio is planned with each
+// strategy and the output keeps the input order.
+final class DebtBatch {
+    static final DebtPlanner.Strategy[] STRATEGIES = DebtPlanner.Strategy.values();
+
+    private DebtBatch() {}
+
+    record Portfolio(String id, double payment, double[] balances, double[] rates) {}
+
+    // One plan per strategy, null where that strategy never clears the portfolio;
+    // problem is the first such reason
+    record Outcome(Portfolio portfolio, DebtPlanner.Plan[] plans, String problem) {}
+
+    record Summary(List<Outcome> outcomes, double seconds) {
+        double portfoliosPerSecond() {
+            return outcomes.size() / seconds;
+        }
+    }
+
+    static Portfolio parse(String line, int lineNumber) {
+        String[] fields = line.split(",");
+        if (fields.length < 2 || fields.length % 2 != 0) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": expected id,payment followed by balance,rate pairs");
+        }
+        try {
+            int debts = (fields.length - 2) / 2;
+            double[] balances = new double[debts];
+            double[] rates = new double[debts];
+            for (int i = 0; i < debts; i++) {
+                balances[i] = Double.parseDouble(fields[2 + 2 * i].trim());
+                rates[i] = Double.parseDouble(fields[3 + 2 * i].trim()) / 100;
+            }
+            return new Portfolio(fields[0].trim(), Double.parseDouble(fields[1].trim()), balances, rates);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage());
+        }
+    }
+
+    static Outcome evaluate(Portfolio portfolio) {
+        DebtPlanner.Plan[] plans = new DebtPlanner.Plan[STRATEGIES.length];
+        String problem = null;
+        for (int s = 0; s < STRATEGIES.length; s++) {
+            try {
+                plans[s] = DebtPlanner.plan(STRATEGIES[s], portfolio.balances(), portfolio.rates(), portfolio.payment());
+            } catch (IllegalArgumentException e) {
+                if (problem == null) problem = e.getMessage();
+            }
+        }
+        return new Outcome(portfolio, plans, problem);
+    }
+
+    static Summary run(Path input) throws IOException {
+        long start = System.nanoTime();
+        List<String> lines = Files.readAllLines(input);
+        List<Outcome> outcomes = IntStream.range(0, lines.size()).parallel()
+                .filter(i -> !lines.get(i).isBlank() && !lines.get(i).startsWith("#"))
+                .mapToObj(i -> evaluate(parse(lines.get(i), i + 1)))
+                .toList();
+        return new Summary(outcomes, (System.nanoTime() - start) / 1e9);
+    }
+
+    // id, then total interest and months for each strategy; infeasible portfolios get empty cells
+    static void write(Summary summary, Path output) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(output)) {
+            StringBuilder header = new StringBuilder("id");
+            for (DebtPlanner.Strategy strategy : STRATEGIES) {
+                String name = strategy.name().toLowerCase();
+                header.append(',').append(name).append("_interest,").append(name).append("_months");
+            }
+            writer.write(header.toString());
+            writer.newLine();
+            for (Outcome outcome : summary.outcomes()) {
+                StringBuilder line = new StringBuilder(outcome.portfolio().id());
+                for (DebtPlanner.Plan plan : outcome.plans()) {
+                    if (plan == null) {
+                        line.append(",,");
+                    } else {
+                        line.append(String.format(",%.2f,%d", plan.totalInterest(), plan.months()));
+                    }
+                }
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    static void printSummary(Summary summary, PrintStream out) {
+        List<Outcome> feasible = summary.outcomes().stream().filter(o -> o.problem() == null).toList();
+        out.printf("%d portfolios in %.3f s (%,.0f portfolios/s), %d infeasible under some strategy%n",
+                summary.outcomes().size(), summary.seconds(), summary.portfoliosPerSecond(),
+                summary.outcomes().size() - feasible.size());
+        if (feasible.isEmpty()) return;
+        for (int s = 0; s < STRATEGIES.length; s++) {
+            int strategy = s;
+            double interest = feasible.stream().mapToDouble(o -> o.plans()[strategy].totalInterest()).sum();
+            double months = feasible.stream().mapToLong(o -> o.plans()[strategy].months()).sum();
+            out.printf("%-13s mean interest $%.2f, mean months to payoff %.1f%n",
+                    STRATEGIES[s].name().toLowerCase(), interest / feasible.size(), months / feasible.size());
+        }
+        int avalanche = DebtPlanner.Strategy.AVALANCHE.ordinal();
+        int search = DebtPlanner.Strategy.MIN_INTEREST.ordinal();
+        long better = feasible.stream()
+                .filter(o -> o.plans()[search].totalInterest() < o.plans()[avalanche].totalInterest() - 0.005)
+                .count();
+        out.printf("min_interest saves at least a cent over avalanche for %d of %d portfolios%n", better, feasible.size());
+    }
+
+    // Usage: DebtBatch <portfolios.csv> [summary.csv]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: DebtBatch <portfolios.csv> [summary.csv]");
+            System.exit(2);
+        }
+        Summary summary = run(Paths.get(args[0]));
+        printSummary(summary, System.out);
+        if (args.length > 1) write(summary, Paths.get(args[1]));
+    }
+}
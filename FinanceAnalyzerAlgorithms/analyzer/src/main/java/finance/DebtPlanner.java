@@ -0,0 +1,286 @@
+package finance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Event-driven version of FinanceAnalyzer.optimizeDebtRepayment: every month all debts
+// accrue interest at rate / 12 and the whole payment goes to one target debt until it is
+// paid off. The strategy picks the targets: avalanche (highest rate, the original rule),
+// snowball (smallest balance) or a search for the order with the least total interest.
+// Between two payoffs nothing changes but the balances, so each payoff is found in
+// closed form instead of month by month:
+// paying P on a balance B growing by g = 1 + r / 12 leaves
+//     B_j = B g^j - P (g^j - 1) / (g - 1)
+// after j months, and the other debts simply grow by their own g^j. The plan is one
+// segment per payoff, and a payment that cannot outgrow a target's interest is
+// reported before anything is planned.
+final class DebtPlanner {
+    // Orders of up to this many debts are searched exhaustively for MIN_INTEREST
+    static final int MAX_EXHAUSTIVE_DEBTS = 8;
+
+    private DebtPlanner() {}
+
+    enum Strategy {
+        AVALANCHE, SNOWBALL, MIN_INTEREST;
+
+        static Strategy parse(String name) {
+            String key = name.trim().toUpperCase().replace('-', '_').replace(' ', '_');
+            for (Strategy strategy : values()) {
+                if (strategy.name().equals(key)) return strategy;
+            }
+            throw new IllegalArgumentException("Unknown repayment strategy: " + name);
+        }
+    }
+
+    // Picks the next debt to pay off from the current balances, -1 when all are paid
+    private interface Targeting {
+        int next(double[] balance, double[] rates, boolean[] open);
+    }
+
+    // Months firstMonth..lastMonth() pay payment to debt (0-based input index); the last
+    // month pays finalPayment and clears it. startBalance is its balance when targeted.
+    record Segment(int debt, double rate, long firstMonth, long months, double startBalance,
+                   double payment, double finalPayment) {
+        long lastMonth() {
+            return firstMonth + months - 1;
+        }
+
+        double paid() {
+            return (months - 1) * payment + finalPayment;
+        }
+    }
+
+    record Plan(List<Segment> segments, long months, double totalPaid, double totalInterest) {}
+
+    // rates are annual fractions (0.18 for 18%)
+    static Plan avalanche(double[] balances, double[] rates, double payment) {
+        return plan(Strategy.AVALANCHE, balances, rates, payment);
+    }
+
+    static Plan plan(Strategy strategy, double[] balances, double[] rates, double payment) {
+        check(balances, rates, payment);
+        return switch (strategy) {
+            case AVALANCHE -> follow(balances, rates, payment, (balance, r, open) -> highestRate(r, open));
+            case SNOWBALL -> follow(balances, rates, payment, (balance, r, open) -> smallestBalance(balance, open));
+            case MIN_INTEREST -> minimumInterest(balances, rates, payment);
+        };
+    }
+
+    private static Plan follow(double[] balances, double[] rates, double payment, Targeting targeting) {
+        int n = balances.length;
+        double[] balance = balances.clone();
+        boolean[] open = new boolean[n];
+        double principal = 0;
+        for (int i = 0; i < n; i++) {
+            open[i] = balance[i] > 0;
+            if (open[i]) principal += balance[i];
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        long month = 0;
+        double totalPaid = 0;
+        for (int target = targeting.next(balance, rates, open); target >= 0; target = targeting.next(balance, rates, open)) {
+            // The month of the target's first payment already accrues interest on every debt
+            double growth = 1 + rates[target] / 12;
+            long months = monthsToPayOff(balance[target], rates[target], payment);
+            if (months < 0) {
+                throw new IllegalArgumentException(String.format(
+                        "Payment of $%.2f never pays off debt %d: its balance of $%.2f accrues $%.2f interest in its first month",
+                        payment, target + 1, balance[target], balance[target] * (growth - 1)));
+            }
+            double finalPayment = balanceAfter(balance[target], rates[target], payment, months - 1) * growth;
+            Segment segment = new Segment(target, rates[target], month + 1, months, balance[target], payment, finalPayment);
+            segments.add(segment);
+            totalPaid += segment.paid();
+            month += months;
+
+            open[target] = false;
+            balance[target] = 0;
+            for (int i = 0; i < n; i++) {
+                if (open[i]) balance[i] *= Math.pow(1 + rates[i] / 12, months);
+            }
+        }
+        return new Plan(segments, month, totalPaid, totalPaid - principal);
+    }
+
+    private static void check(double[] balances, double[] rates, double payment) {
+        if (balances.length != rates.length) throw new IllegalArgumentException("Each debt needs a balance and a rate");
+        if (!(payment > 0) || Double.isInfinite(payment)) throw new IllegalArgumentException("Monthly payment must be positive");
+        for (int i = 0; i < balances.length; i++) {
+            if (!(balances[i] >= 0) || Double.isInfinite(balances[i])) {
+                throw new IllegalArgumentException("Balance of debt " + (i + 1) + " must be a non-negative amount");
+            }
+            if (!(rates[i] >= 0) || Double.isInfinite(rates[i])) {
+                throw new IllegalArgumentException("Interest rate of debt " + (i + 1) + " must not be negative");
+            }
+        }
+    }
+
+    // Unpaid debt with the highest rate, first one on ties, -1 when all are paid
+    private static int highestRate(double[] rates, boolean[] open) {
+        int best = -1;
+        for (int i = 0; i < rates.length; i++) {
+            if (open[i] && (best < 0 || rates[i] > rates[best])) best = i;
+        }
+        return best;
+    }
+
+    // Unpaid debt with the smallest current balance, first one on ties, -1 when all are paid
+    private static int smallestBalance(double[] balance, boolean[] open) {
+        int best = -1;
+        for (int i = 0; i < balance.length; i++) {
+            if (open[i] && (best < 0 || balance[i] < balance[best])) best = i;
+        }
+        return best;
+    }
+
+    // Payoff order with the least total paid (so the least interest), fewer months on ties.
+    // Small portfolios get a depth-first search over all orders, cut off once the amount
+    // paid plus the balances still owed reaches the best complete plan; larger ones start
+    // from the better of avalanche and snowball and swap pairs while that helps.
+    private static Plan minimumInterest(double[] balances, double[] rates, double payment) {
+        int n = balances.length;
+        int[] order;
+        if (n <= MAX_EXHAUSTIVE_DEBTS) {
+            OrderSearch search = new OrderSearch(rates, payment);
+            boolean[] done = new boolean[n];
+            for (int i = 0; i < n; i++) done[i] = !(balances[i] > 0);
+            search.descend(balances.clone(), done, new int[n], 0, 0, 0);
+            if (search.best == null) {
+                // Every order leaves some debt unpayable; report it as avalanche would
+                return avalanche(balances, rates, payment);
+            }
+            order = search.best;
+        } else {
+            Plan start = bestOf(
+                    orElseNull(() -> follow(balances, rates, payment, (balance, r, open) -> highestRate(r, open))),
+                    orElseNull(() -> follow(balances, rates, payment, (balance, r, open) -> smallestBalance(balance, open))));
+            if (start == null) return avalanche(balances, rates, payment);
+            order = targets(start);
+            Plan best = start;
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                for (int i = 0; i < order.length; i++) {
+                    for (int j = i + 1; j < order.length; j++) {
+                        int[] swapped = order.clone();
+                        swapped[i] = order[j];
+                        swapped[j] = order[i];
+                        Plan candidate = orElseNull(() -> inOrder(balances, rates, payment, swapped));
+                        if (bestOf(best, candidate) != best) {
+                            best = candidate;
+                            order = swapped;
+                            improved = true;
+                        }
+                    }
+                }
+            }
+        }
+        return inOrder(balances, rates, payment, order);
+    }
+
+    private static Plan inOrder(double[] balances, double[] rates, double payment, int[] order) {
+        int[] position = {0};
+        return follow(balances, rates, payment, (balance, r, open) -> {
+            while (position[0] < order.length && !open[order[position[0]]]) position[0]++;
+            return position[0] < order.length ? order[position[0]] : -1;
+        });
+    }
+
+    private static int[] targets(Plan plan) {
+        return plan.segments().stream().mapToInt(Segment::debt).toArray();
+    }
+
+    private static Plan bestOf(Plan a, Plan b) {
+        if (b == null) return a;
+        if (a == null) return b;
+        if (b.totalPaid() < a.totalPaid() || (b.totalPaid() == a.totalPaid() && b.months() < a.months())) return b;
+        return a;
+    }
+
+    private static Plan orElseNull(Supplier<Plan> planner) {
+        try {
+            return planner.get();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static final class OrderSearch {
+        private final double[] rates;
+        private final double payment;
+        private int[] best;
+        private double bestPaid = Double.POSITIVE_INFINITY;
+        private long bestMonths = Long.MAX_VALUE;
+
+        OrderSearch(double[] rates, double payment) {
+            this.rates = rates;
+            this.payment = payment;
+        }
+
+        void descend(double[] balance, boolean[] done, int[] order, int depth, double paid, long months) {
+            double owed = 0;
+            for (int i = 0; i < balance.length; i++) {
+                if (!done[i]) owed += balance[i];
+            }
+            if (paid + owed > bestPaid) return;
+            boolean finished = true;
+            for (boolean paidOff : done) finished &= paidOff;
+            if (finished) {
+                if (paid < bestPaid || (paid == bestPaid && months < bestMonths)) {
+                    bestPaid = paid;
+                    bestMonths = months;
+                    best = Arrays.copyOf(order, depth);
+                }
+                return;
+            }
+            for (int target = 0; target < balance.length; target++) {
+                if (done[target]) continue;
+                order[depth] = target;
+                long span = monthsToPayOff(balance[target], rates[target], payment);
+                if (span < 0) continue;
+                double segmentPaid = (span - 1) * payment
+                        + balanceAfter(balance[target], rates[target], payment, span - 1) * (1 + rates[target] / 12);
+                double[] next = new double[balance.length];
+                for (int i = 0; i < balance.length; i++) {
+                    if (!done[i] && i != target) next[i] = balance[i] * Math.pow(1 + rates[i] / 12, span);
+                }
+                done[target] = true;
+                descend(next, done, order, depth + 1, paid + segmentPaid, months + span);
+                done[target] = false;
+            }
+        }
+    }
+
+    // Balance after j months of interest-then-payment
+    static double balanceAfter(double balance, double rate, double payment, long j) {
+        if (rate == 0) return balance - j * payment;
+        double logGrowth = Math.log1p(rate / 12);
+        double grown = Math.expm1(j * logGrowth); // g^j - 1
+        return balance + balance * grown - payment * grown / (rate / 12);
+    }
+
+    // Months until a payment clears the balance, the last one being a partial payment,
+    // or -1 if the balance never shrinks. The month with j payments behind it is the
+    // last when its grown balance B_j g is no more than the payment.
+    static long monthsToPayOff(double balance, double rate, double payment) {
+        double growth = 1 + rate / 12;
+        double limit = payment / growth;
+        if (balance <= limit) return 1;
+        long j;
+        if (rate == 0) {
+            j = (long) Math.ceil((balance - payment) / payment);
+        } else {
+            double level = payment / (rate / 12); // balance at which interest eats the whole payment
+            if (!(balance < level)) return -1;
+            j = (long) Math.ceil(Math.log((level - limit) / (level - balance)) / Math.log1p(rate / 12));
+        }
+        // The logarithm can be off by a month either way near an exact payoff
+        j = Math.max(j, 1);
+        while (j > 1 && balanceAfter(balance, rate, payment, j - 1) <= limit) j--;
+        while (balanceAfter(balance, rate, payment, j) > limit) j++;
+        return j + 1;
+    }
+}
@@ -0,0 +1,942 @@
+package finance;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.random.RandomGenerator;
+
+public class FinanceAnalyzer {
+    private static final Scanner scanner = new Scanner(System.in);
+    private static final Random random = new Random();
+
+    // Main CLI interface; with arguments the analyses run headless (see JobRunner).
+    // -Dfinance.metrics=true prints the stage metrics and dataset cache counts on exit.
+    public static void main(String[] args) {
+        if (args.length > 0) {
+            JobRunner.main(args);
+            return;
+        }
+        while (true) {
+            displayMenu();
+            int choice = getUserChoice();
+            if (choice == 0) break;
+
+            switch (choice) {
+                case 1 -> runMovingAverageCrossover();
+                case 2 -> runMonteCarloSimulation();
+                case 3 -> runBudgetAllocation();
+                case 4 -> runExpenseClustering();
+                case 5 -> runDebtRepaymentOptimization();
+                case 6 -> runStreamingCrossover();
+                case 7 -> runVarianceReducedMonteCarlo();
+                case 8 -> runOnlineExpenseClustering();
+                case 9 -> runDebtStrategyBatch();
+                case 10 -> runCrossoverSweep();
+                case 11 -> runIndicatorSignals();
+                case 12 -> runMultiSymbolBacktest();
+                default -> System.out.println("Invalid choice. Try again.");
+            }
+        }
+        if (Metrics.enabled()) {
+            System.out.println("\nStage metrics:");
+            Metrics.printSummary(System.out);
+            DatasetCache.printStats(System.out);
+        }
+        scanner.close();
+    }
+
+    private static void displayMenu() {
+        System.out.println("\n=== Finance Analyzer ===");
+        System.out.println("1. Moving Average Crossover (Stock Analysis)");
+        System.out.println("2. Monte Carlo Savings Simulation");
+        System.out.println("3. Budget Allocation (Graph-based)");
+        System.out.println("4. Expense Clustering (K-Means)");
+        System.out.println("5. Debt Repayment Optimization");
+        System.out.println("6. Streaming Moving Average Crossover (Price Feed)");
+        System.out.println("7. Monte Carlo with Variance Reduction");
+        System.out.println("8. Online Expense Clustering (New Expenses)");
+        System.out.println("9. Debt Strategy Comparison (Portfolio File)");
+        System.out.println("10. Moving Average Crossover Parameter Sweep");
+        System.out.println("11. Indicator Signals (SMA, EMA, Bollinger, RSI)");
+        System.out.println("12. Multi-Symbol Crossover Backtest (Price Directory)");
+        System.out.println("0. Exit");
+        System.out.print("Enter choice: ");
+    }
+
+    private static int getUserChoice() {
+        try {
+            return Integer.parseInt(scanner.nextLine());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String promptWithDefault(String prompt, String defaultValue) {
+        System.out.print(prompt + " [" + defaultValue + "]: ");
+        String input = scanner.nextLine().trim();
+        return input.isEmpty() ? defaultValue : input;
+    }
+
+    // Algorithm 1: Moving Average Crossover for Stock Analysis
+    private static void runMovingAverageCrossover() {
+        while (true) {
+            try {
+                System.out.print("Enter short-term MA period (e.g., 10): ");
+                int shortPeriod = Integer.parseInt(scanner.nextLine());
+
+                System.out.print("Enter long-term MA period (e.g., 50): ");
+                int longPeriod = Integer.parseInt(scanner.nextLine());
+                boolean binary = promptWithDefault("Output format (csv/binary)", "csv").equalsIgnoreCase("binary");
+
+                movingAverageCrossover(Paths.get("stock_prices.csv"), shortPeriod, longPeriod,
+                        Paths.get(binary ? "trading_signals.bin" : "trading_signals.csv"), System.out);
+                break; // Exit loop on success
+
+            } catch (IOException e) {
+                System.out.println("Error reading stock prices: " + e.getMessage());
+                break;
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid input. Please enter numeric values for periods.");
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage() + " Try again.\n");
+            } catch (Exception e) {
+                System.out.println("Unexpected error: " + e.getMessage());
+            }
+        }
+    }
+
+    // A .bin signals file gets the run-length encoded format of ResultFiles
+    static void movingAverageCrossover(Path pricesFile, int shortPeriod, int longPeriod, Path signalsFile,
+                                       PrintStream out) throws IOException {
+        if (shortPeriod <= 0 || longPeriod <= 0) {
+            throw new IllegalArgumentException("Periods must be positive integers.");
+        }
+        if (shortPeriod >= longPeriod) {
+            throw new IllegalArgumentException("Short-term period must be less than long-term period.");
+        }
+        StageEvent stage = Metrics.start("crossover", "parse");
+        double[] prices = DatasetCache.prices(pricesFile);
+        Metrics.end(stage, prices.length, "rows", pricesFile);
+        if (longPeriod > prices.length) {
+            throw new IllegalArgumentException("Long-term period exceeds number of data points (" + prices.length + ").");
+        }
+
+        stage = Metrics.start("crossover", "compute");
+        Signal[] signals = crossoverSignals(prices, shortPeriod, longPeriod);
+        Metrics.end(stage, signals.length, "signals");
+
+        stage = Metrics.start("crossover", "write");
+        writeSignals(signals, signalsFile);
+        Metrics.end(stage, signals.length, "signals", signalsFile);
+
+        out.println("Trading signals generated and saved to " + signalsFile);
+    }
+
+    // Both averages come out of one pipeline pass, aligned at the first full long window,
+    // so signal i is for the price at index longPeriod + i. Days where the running averages
+    // are too close to order are re-summed per window, so the signals are exactly those of
+    // calculateMovingAverage + generateTradingSignals(List, List), ties included.
+    static Signal[] crossoverSignals(double[] prices, int shortPeriod, int longPeriod) {
+        IndicatorPipeline.Indicator shortAverage = IndicatorPipeline.Indicator.parse("sma:" + shortPeriod);
+        IndicatorPipeline.Indicator longAverage = IndicatorPipeline.Indicator.parse("sma:" + longPeriod);
+        IndicatorPipeline.Columns columns = IndicatorPipeline.compute(prices, List.of(shortAverage, longAverage));
+        double[] shortMA = columns.column(shortAverage);
+        double[] longMA = columns.column(longAverage);
+        MovingAverageEngine.matchReferenceTies(prices, shortMA, shortPeriod, longMA, longPeriod, columns.start());
+        return generateTradingSignals(shortMA, longMA);
+    }
+
+    // Line-by-line reader kept as the reference for CsvLoader.loadPrices
+    static List<Double> readStockPrices(String fileName) throws IOException {
+        List<Double> prices = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(fileName))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                prices.add(Double.parseDouble(line));
+            }
+        }
+        return prices;
+    }
+
+    // Per-window reference for MovingAverageEngine.simpleMovingAverage
+    static List<Double> calculateMovingAverage(List<Double> prices, int period) {
+        List<Double> ma = new ArrayList<>();
+        for (int i = 0; i <= prices.size() - period; i++) {
+            double sum = 0;
+            for (int j = i; j < i + period; j++) {
+                sum += prices.get(j);
+            }
+            ma.add(sum / period);
+        }
+        return ma;
+    }
+
+    static List<String> generateTradingSignals(List<Double> shortMA, List<Double> longMA) {
+        List<String> signals = new ArrayList<>();
+        for (int i = 1; i < shortMA.size(); i++) {
+            if (shortMA.get(i - 1) < longMA.get(i - 1) && shortMA.get(i) > longMA.get(i)) {
+                signals.add("Day " + (i + 1) + ": BUY");
+            } else if (shortMA.get(i - 1) > longMA.get(i - 1) && shortMA.get(i) < longMA.get(i)) {
+                signals.add("Day " + (i + 1) + ": SELL");
+            } else {
+                signals.add("Day " + (i + 1) + ": HOLD");
+            }
+        }
+        return signals;
+    }
+
+    // Signal of day i + 2 at index i, as the text signals number the days
+    static Signal[] generateTradingSignals(double[] shortMA, double[] longMA) {
+        Signal[] signals = new Signal[Math.max(0, shortMA.length - 1)];
+        for (int i = 1; i < shortMA.length; i++) {
+            signals[i - 1] = Signal.crossover(shortMA[i - 1], longMA[i - 1], shortMA[i], longMA[i]);
+        }
+        return signals;
+    }
+
+    // Rules over any pipeline columns: BUY when the buy crossing happens, otherwise SELL when
+    // the sell crossing does. sma:s>sma:l and sma:s<sma:l give the crossover's signals.
+    static Signal[] generateTradingSignals(IndicatorPipeline.Columns columns, IndicatorPipeline.Cross buy,
+                                           IndicatorPipeline.Cross sell) {
+        IndicatorPipeline.Cross.Test buys = buy.bind(columns);
+        IndicatorPipeline.Cross.Test sells = sell.bind(columns);
+        Signal[] signals = new Signal[Math.max(0, columns.length() - 1)];
+        for (int i = 1; i < columns.length(); i++) {
+            signals[i - 1] = buys.at(i) ? Signal.BUY : sells.at(i) ? Signal.SELL : Signal.HOLD;
+        }
+        return signals;
+    }
+
+    // A .bin file gets the run-length encoded format of ResultFiles, anything else "Day N: SIGNAL" lines
+    static void writeSignals(Signal[] signals, Path file) throws IOException {
+        if (ResultFiles.isBinary(file)) {
+            ResultFiles.writeSignals(signals, 2, file);
+        } else {
+            saveSignalsToFile(signals, file);
+        }
+    }
+
+    private static void saveSignalsToFile(Signal[] signals, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < signals.length; i++) {
+                writer.write("Day " + (i + 2) + ": " + signals[i]);
+                writer.newLine();
+            }
+        }
+    }
+
+    // Algorithm 1c: backtests a whole grid of (short, long) periods over one load of the prices
+    private static void runCrossoverSweep() {
+        try {
+            int[] shortPeriods = CrossoverSweep.parseRange(promptWithDefault("Short-term periods (from:to:step)", "5:50:5"));
+            int[] longPeriods = CrossoverSweep.parseRange(promptWithDefault("Long-term periods (from:to:step)", "20:200:10"));
+            int top = Integer.parseInt(promptWithDefault("Pairs to show", "10"));
+            crossoverSweep(Paths.get("stock_prices.csv"), shortPeriods, longPeriods, top,
+                    Paths.get("crossover_sweep.csv"), System.out);
+        } catch (IOException e) {
+            System.out.println("Error reading stock prices: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    // Prints the top pairs by profit and saves the full ranking
+    static void crossoverSweep(Path pricesFile, int[] shortPeriods, int[] longPeriods, int top, Path rankingFile,
+                               PrintStream out) throws IOException {
+        StageEvent stage = Metrics.start("sweep", "parse");
+        double[] prices = DatasetCache.prices(pricesFile);
+        Metrics.end(stage, prices.length, "rows", pricesFile);
+
+        stage = Metrics.start("sweep", "evaluate");
+        long start = System.nanoTime();
+        List<CrossoverSweep.Result> results = new CrossoverSweep(prices).run(shortPeriods, longPeriods);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Metrics.end(stage, results.size(), "pairs");
+
+        out.printf("%d pairs over %d prices in %.3f s (%.0f pair-bars/s)%n", results.size(), prices.length, seconds,
+                (double) results.size() * prices.length / seconds);
+        out.printf("%4s %6s %6s %6s %6s %7s %12s%n", "Rank", "Short", "Long", "Buys", "Sells", "Trades", "P&L ($/sh)");
+        for (int i = 0; i < Math.min(top, results.size()); i++) {
+            CrossoverSweep.Result r = results.get(i);
+            out.printf("%4d %6d %6d %6d %6d %7d %12.2f%n", i + 1, r.shortPeriod(), r.longPeriod(), r.buys(), r.sells(),
+                    r.trades(), r.profit());
+        }
+
+        stage = Metrics.start("sweep", "write");
+        CrossoverSweep.write(results, rankingFile);
+        Metrics.end(stage, results.size(), "pairs", rankingFile);
+        out.println("Full ranking saved to " + rankingFile);
+    }
+
+    // Algorithm 1d: signals from crossing rules over any indicators, all computed in one pass
+    private static void runIndicatorSignals() {
+        try {
+            IndicatorPipeline.Cross buy = IndicatorPipeline.Cross.parse(
+                    promptWithDefault("Buy when (e.g., sma:10>sma:50, price>lower:20:2, rsi:14>30)", "ema:5>ema:10"));
+            IndicatorPipeline.Cross sell = IndicatorPipeline.Cross.parse(promptWithDefault("Sell when", "ema:5<ema:10"));
+            List<IndicatorPipeline.Indicator> extra = IndicatorPipeline.parseList(
+                    promptWithDefault("Also compute (comma-separated)", "upper:10:2,lower:10:2,rsi:5"));
+            boolean binary = promptWithDefault("Signals format (csv/binary)", "csv").equalsIgnoreCase("binary");
+            indicatorSignals(Paths.get("stock_prices.csv"), buy, sell, extra,
+                    Paths.get(binary ? "trading_signals.bin" : "trading_signals.csv"), Paths.get("indicators.csv"),
+                    System.out);
+        } catch (IOException e) {
+            System.out.println("Error reading stock prices: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    // Saves the signals like the crossover does and every computed column to columnsFile
+    static void indicatorSignals(Path pricesFile, IndicatorPipeline.Cross buy, IndicatorPipeline.Cross sell,
+                                 List<IndicatorPipeline.Indicator> extra, Path signalsFile, Path columnsFile,
+                                 PrintStream out) throws IOException {
+        StageEvent stage = Metrics.start("indicators", "parse");
+        double[] prices = DatasetCache.prices(pricesFile);
+        Metrics.end(stage, prices.length, "rows", pricesFile);
+
+        List<IndicatorPipeline.Indicator> indicators = new ArrayList<>(buy.indicators());
+        indicators.addAll(sell.indicators());
+        indicators.addAll(extra);
+        stage = Metrics.start("indicators", "compute");
+        IndicatorPipeline.Columns columns = IndicatorPipeline.compute(prices, indicators);
+        if (columns.length() < 2) {
+            throw new IllegalArgumentException("The indicators need more than " + (columns.start() + 1)
+                    + " data points (" + prices.length + " given).");
+        }
+        Signal[] signals = generateTradingSignals(columns, buy, sell);
+        Metrics.end(stage, (long) columns.length() * columns.indicators().size(), "values");
+
+        stage = Metrics.start("indicators", "write");
+        writeSignals(signals, signalsFile);
+        IndicatorPipeline.write(columns, columnsFile);
+        Metrics.end(stage, signals.length, "signals", signalsFile, columnsFile);
+
+        long buys = Arrays.stream(signals).filter(signal -> signal == Signal.BUY).count();
+        long sells = Arrays.stream(signals).filter(signal -> signal == Signal.SELL).count();
+        out.printf("%d indicators over %d bars from day %d: %d BUY (%s), %d SELL (%s)%n", columns.indicators().size(),
+                prices.length, columns.start() + 1, buys, buy.name(), sells, sell.name());
+        out.println("Trading signals saved to " + signalsFile + ", indicator columns to " + columnsFile);
+    }
+
+    // Algorithm 1e: the crossover for every <symbol>.csv in a directory, one virtual thread per symbol
+    private static void runMultiSymbolBacktest() {
+        try {
+            String directory = promptWithDefault("Price directory (one <symbol>.csv per symbol)", "prices");
+            int shortPeriod = Integer.parseInt(promptWithDefault("Short-term MA period", "10"));
+            int longPeriod = Integer.parseInt(promptWithDefault("Long-term MA period", "50"));
+            String output = promptWithDefault("Signals directory", "signals");
+            boolean binary = promptWithDefault("Signals format (csv/binary)", "csv").equalsIgnoreCase("binary");
+            multiSymbolBacktest(Paths.get(directory), shortPeriod, longPeriod, Paths.get(output), binary ? ".bin" : ".csv",
+                    MultiSymbolBacktest.DEFAULT_IO_PARALLELISM, Paths.get("backtest_summary.csv"), System.out);
+        } catch (IOException e) {
+            System.out.println("Error running backtest: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    static void multiSymbolBacktest(Path pricesDirectory, int shortPeriod, int longPeriod, Path signalsDirectory,
+                                    String suffix, int ioParallelism, Path summaryFile, PrintStream out)
+            throws IOException {
+        MultiSymbolBacktest.Summary summary = MultiSymbolBacktest.run(pricesDirectory, shortPeriod, longPeriod,
+                signalsDirectory, suffix, ioParallelism);
+        MultiSymbolBacktest.printSummary(summary, 10, out);
+        MultiSymbolBacktest.write(summary, summaryFile);
+        out.println("Signals saved to " + signalsDirectory + ", per-symbol summary to " + summaryFile);
+    }
+
+    // Streams a price file tick by tick instead of loading it; use StreamingCrossover.main for stdin feeds
+    private static void runStreamingCrossover() {
+        try {
+            System.out.print("Enter price feed file (e.g., stock_prices.csv): ");
+            String fileName = scanner.nextLine().trim();
+            System.out.print("Enter short-term MA period (e.g., 10): ");
+            int shortPeriod = Integer.parseInt(scanner.nextLine());
+            System.out.print("Enter long-term MA period (e.g., 50): ");
+            int longPeriod = Integer.parseInt(scanner.nextLine());
+
+            streamingCrossover(Paths.get(fileName), shortPeriod, longPeriod, Paths.get("trading_signals.csv"), System.out);
+        } catch (IOException e) {
+            System.out.println("Error streaming prices: " + e.getMessage());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid input. Please enter numeric values for periods.");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    static void streamingCrossover(Path feedFile, int shortPeriod, int longPeriod, Path signalsFile,
+                                   PrintStream out) throws IOException {
+        StreamingCrossover crossover = new StreamingCrossover(shortPeriod, longPeriod);
+        long emitted;
+        StageEvent stage = Metrics.start("streaming", "stream");
+        try (BufferedReader reader = Files.newBufferedReader(feedFile);
+             BufferedWriter writer = Files.newBufferedWriter(signalsFile)) {
+            emitted = crossover.run(reader, writer);
+        }
+        Metrics.end(stage, emitted, "signals", feedFile);
+        out.println(emitted + " streamed signals saved to " + signalsFile);
+    }
+
+    // Algorithm 2: Monte Carlo Simulation for Savings
+    private static void runMonteCarloSimulation() {
+        System.out.print("Enter initial investment ($): ");
+        double initial = Double.parseDouble(scanner.nextLine());
+        System.out.print("Enter years to simulate: ");
+        int years = Integer.parseInt(scanner.nextLine());
+        System.out.print("Enter number of simulations (or 'auto' to stop at a target precision): ");
+        String simulationsInput = scanner.nextLine().trim();
+        if (simulationsInput.equalsIgnoreCase("auto")) {
+            runAdaptiveMonteCarlo(initial, years);
+            return;
+        }
+        long simulations = Long.parseLong(simulationsInput);
+        System.out.print("Enter random seed (blank for random): ");
+        String seedInput = scanner.nextLine().trim();
+        long seed = seedInput.isEmpty() ? random.nextLong() : Long.parseLong(seedInput);
+        String kernelInput = promptWithDefault("Path kernel (per-path/scalar-batch/vector-batch)", PathKernel.DEFAULT.name());
+        System.out.print("Save every final balance to monte_carlo_results? (y/n): ");
+        boolean saveAll = scanner.nextLine().trim().equalsIgnoreCase("y");
+        Path resultsFile = null;
+        if (saveAll) {
+            boolean binary = promptWithDefault("Output format (csv/binary)", "csv").equalsIgnoreCase("binary");
+            resultsFile = Paths.get(binary ? "monte_carlo_results.bin" : "monte_carlo_results.csv");
+        }
+
+        try {
+            monteCarlo(initial, years, simulations, seed, PathKernel.parse(kernelInput), resultsFile, System.out);
+        } catch (IOException e) {
+            System.out.println("Error saving results: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    // Final balances are only kept and saved when resultsFile is given; a .bin file gets
+    // the little-endian doubles of ResultFiles
+    static void monteCarlo(double initial, int years, long simulations, long seed, PathKernel kernel, Path resultsFile,
+                           PrintStream out) throws IOException {
+        if (resultsFile != null && simulations > Integer.MAX_VALUE - 8) {
+            out.println("Too many simulations to save every balance; only the summary will be shown.");
+            resultsFile = null;
+        }
+
+        double[] finalBalances = resultsFile != null ? new double[(int) simulations] : null;
+        StageEvent stage = Metrics.start("montecarlo", "simulate");
+        long start = System.nanoTime();
+        MonteCarloStats stats = ParallelMonteCarlo.run(initial, years, simulations, seed, kernel, finalBalances);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Metrics.end(stage, simulations, "paths");
+
+        out.printf("Average final balance: $%.2f%n", stats.mean());
+        out.printf("Standard deviation: $%.2f%n", stats.standardDeviation());
+        out.printf("Min / max: $%.2f / $%.2f%n", stats.min(), stats.max());
+        out.printf("P5 / P50 / P95: $%.2f / $%.2f / $%.2f%n",
+                stats.quantile(0.05), stats.quantile(0.50), stats.quantile(0.95));
+        out.printf("Simulated %d paths in %.3f s (%.0f paths/s, seed %d, %s kernel)%n",
+                simulations, seconds, simulations / seconds, seed, kernel.name());
+        if (resultsFile == null) return;
+        stage = Metrics.start("montecarlo", "write");
+        if (ResultFiles.isBinary(resultsFile)) {
+            ResultFiles.writeBalances(finalBalances, resultsFile);
+        } else {
+            saveSimulationResults(finalBalances, resultsFile);
+        }
+        Metrics.end(stage, simulations, "balances", resultsFile);
+        out.println("Simulation results saved to " + resultsFile);
+    }
+
+    private static void runAdaptiveMonteCarlo(double initial, int years) {
+        System.out.print("Enter target relative error of the mean (%, e.g., 0.1): ");
+        double targetError = Double.parseDouble(scanner.nextLine()) / 100;
+        System.out.print("Enter confidence level (%, e.g., 95): ");
+        double confidence = Double.parseDouble(scanner.nextLine()) / 100;
+        System.out.print("Enter maximum number of simulations: ");
+        long maxPaths = Long.parseLong(scanner.nextLine());
+        System.out.print("Enter time limit (seconds): ");
+        double maxSeconds = Double.parseDouble(scanner.nextLine());
+        System.out.print("Enter random seed (blank for random): ");
+        String seedInput = scanner.nextLine().trim();
+        long seed = seedInput.isEmpty() ? random.nextLong() : Long.parseLong(seedInput);
+        String kernelInput = promptWithDefault("Path kernel (per-path/scalar-batch/vector-batch)", PathKernel.DEFAULT.name());
+
+        try {
+            adaptiveMonteCarlo(initial, years, targetError, confidence, maxPaths, maxSeconds, seed,
+                    PathKernel.parse(kernelInput), System.out);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    static void adaptiveMonteCarlo(double initial, int years, double targetError, double confidence, long maxPaths,
+                                   double maxSeconds, long seed, PathKernel kernel, PrintStream out) {
+        StageEvent stage = Metrics.start("montecarlo-auto", "simulate");
+        AdaptiveMonteCarlo.Result result = AdaptiveMonteCarlo.run(
+                initial, years, targetError, confidence, maxPaths, maxSeconds, seed, kernel);
+        Metrics.end(stage, result.paths(), "paths");
+        MonteCarloStats stats = result.stats();
+        out.printf("Average final balance: $%.2f +/- $%.2f (%.0f%% confidence, %.4f%% relative)%n",
+                stats.mean(), result.halfWidth(), confidence * 100, result.relativeError() * 100);
+        out.printf("Standard deviation: $%.2f%n", stats.standardDeviation());
+        out.printf("P5 / P50 / P95: $%.2f / $%.2f / $%.2f%n",
+                stats.quantile(0.05), stats.quantile(0.50), stats.quantile(0.95));
+        out.printf("Stopped (%s) after %d paths in %d batches, %.3f s wall time (seed %d, %s kernel)%n",
+                result.reason(), result.paths(), result.batches(), result.seconds(), seed, kernel.name());
+    }
+
+    // Same savings model, estimated with a variance-reduction mode (or all of them, for comparison)
+    private static void runVarianceReducedMonteCarlo() {
+        System.out.print("Enter initial investment ($): ");
+        double initial = Double.parseDouble(scanner.nextLine());
+        System.out.print("Enter years to simulate: ");
+        int years = Integer.parseInt(scanner.nextLine());
+        System.out.print("Enter number of simulations: ");
+        long simulations = Long.parseLong(scanner.nextLine());
+        System.out.print("Enter random seed (blank for random): ");
+        String seedInput = scanner.nextLine().trim();
+        long seed = seedInput.isEmpty() ? random.nextLong() : Long.parseLong(seedInput);
+        System.out.print("Mode (plain/antithetic/sobol/control/all): ");
+        String modeInput = scanner.nextLine().trim();
+
+        try {
+            varianceReducedMonteCarlo(initial, years, simulations, seed, modeInput, System.out);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    // modes is one VarianceReduction mode name, or "all" to compare them
+    static void varianceReducedMonteCarlo(double initial, int years, long simulations, long seed, String modes,
+                                          PrintStream out) {
+        List<VarianceReduction.Mode> selected = modes.equalsIgnoreCase("all")
+                ? List.of(VarianceReduction.Mode.values())
+                : List.of(VarianceReduction.Mode.parse(modes));
+        out.printf("%nAnalytic mean final balance: $%.4f (seed %d)%n", VarianceReduction.analyticMean(initial, years), seed);
+        out.printf("%-16s %14s %12s %14s %12s %9s%n", "Mode", "Mean ($)", "Std error", "95% CI +/-", "Paths", "Time (s)");
+        for (VarianceReduction.Mode mode : selected) {
+            StageEvent stage = Metrics.start("variance", mode.name().toLowerCase());
+            VarianceReduction.Estimate e = VarianceReduction.estimate(mode, initial, years, simulations, seed);
+            Metrics.end(stage, e.paths(), "paths");
+            out.printf("%-16s %14.4f %12.6f %14.6f %12d %9.3f%n",
+                    mode, e.mean(), e.standardError(), e.halfWidth(1.96), e.paths(), e.seconds());
+        }
+    }
+
+    // One path of the savings model; the generator is the caller's, so parallel workers never share one
+    static double monteCarloSimulation(double initial, int years, RandomGenerator rng) {
+        double balance = initial;
+        for (int i = 0; i < years; i++) {
+            double annualReturn = rng.nextGaussian() * 0.05 + 0.07; // Mean 7%, SD 5%
+            balance *= (1 + annualReturn);
+        }
+        return balance;
+    }
+
+    private static void saveSimulationResults(double[] balances, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (double balance : balances) {
+                writer.write(String.format("%.2f", balance));
+                writer.newLine();
+            }
+        }
+    }
+
+    // Algorithm 3: Budget Allocation (Graph-based)
+    private static void runBudgetAllocation() {
+        try {
+            System.out.print("Enter total budget ($): ");
+            long totalCents = BudgetAllocator.toCents(Double.parseDouble(scanner.nextLine()));
+            System.out.print("Category file (name,parent,priority,min,max; blank to enter categories): ");
+            String file = scanner.nextLine().trim();
+
+            BudgetAllocator allocator;
+            if (file.isEmpty()) {
+                System.out.print("Enter number of categories: ");
+                int numCategories = Integer.parseInt(scanner.nextLine());
+                String[] names = new String[Math.max(0, numCategories)];
+                double[] priorities = new double[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    System.out.print("Enter name for category " + (i + 1) + ": ");
+                    String name = scanner.nextLine();
+                    System.out.print("Enter priority (1-10) for " + name + ": ");
+                    Category category = new Category(name, Integer.parseInt(scanner.nextLine()));
+                    names[i] = category.name;
+                    priorities[i] = category.priority;
+                }
+                allocator = BudgetAllocator.flat(names, priorities);
+            } else {
+                allocator = loadBudget(Paths.get(file));
+            }
+            budgetAllocation(allocator, totalCents, allocator.size() > 50 ? Paths.get("budget_allocation.csv") : null, System.out);
+
+            // Changes re-split only the part of the tree they can affect
+            while (true) {
+                System.out.print("Change a category as name,priority[,min,max] (blank to finish): ");
+                String change = scanner.nextLine().trim();
+                if (change.isEmpty()) break;
+                String[] fields = change.split(",", -1);
+                try {
+                    int category = allocator.indexOf(fields[0].trim());
+                    double priority = Double.parseDouble(fields[1].trim());
+                    long min = fields.length > 2 && !fields[2].isBlank() ? BudgetAllocator.toCents(Double.parseDouble(fields[2].trim())) : 0;
+                    long max = fields.length > 3 && !fields[3].isBlank()
+                            ? BudgetAllocator.toCents(Double.parseDouble(fields[3].trim())) : BudgetAllocator.UNBOUNDED;
+                    long start = System.nanoTime();
+                    allocator.update(category, priority, min, max);
+                    System.out.printf("Reallocated with %d of %d splits in %.3f ms%n", allocator.takeSplitCount(),
+                            allocator.size() + 1, (System.nanoTime() - start) / 1e6);
+                    printBudget(allocator, allocator.size() > 50 ? Paths.get("budget_allocation.csv") : null, System.out);
+                } catch (ArrayIndexOutOfBoundsException e) {
+                    System.out.println("Expected name,priority[,min,max]");
+                } catch (IllegalArgumentException e) {
+                    System.out.println(e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading categories: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    static void budgetAllocation(BudgetAllocator allocator, long totalCents, Path allocationFile,
+                                 PrintStream out) throws IOException {
+        StageEvent stage = Metrics.start("budget", "allocate");
+        allocator.allocate(totalCents);
+        Metrics.end(stage, allocator.takeSplitCount(), "splits");
+        printBudget(allocator, allocationFile, out);
+    }
+
+    static BudgetAllocator loadBudget(Path categoriesFile) throws IOException {
+        StageEvent stage = Metrics.start("budget", "parse");
+        BudgetAllocator allocator = BudgetAllocator.load(categoriesFile);
+        Metrics.end(stage, allocator.size(), "categories", categoriesFile);
+        return allocator;
+    }
+
+    // Small budgets are printed as an indented tree; the allocation file, when given, gets every category
+    private static void printBudget(BudgetAllocator allocator, Path allocationFile, PrintStream out) throws IOException {
+        if (allocationFile != null) {
+            StageEvent stage = Metrics.start("budget", "write");
+            allocator.write(allocationFile);
+            Metrics.end(stage, allocator.size(), "categories", allocationFile);
+        }
+        if (allocator.size() > 50) {
+            out.printf("Allocated $%s over %d categories%s%n", BudgetAllocator.formatCents(allocator.total()),
+                    allocator.size(), allocationFile != null ? "; saved to " + allocationFile : "");
+            return;
+        }
+        out.println("\nBudget Allocation:");
+        for (int i = 0; i < allocator.size(); i++) {
+            int depth = 0;
+            for (int p = allocator.parent(i); p >= 0; p = allocator.parent(p)) depth++;
+            out.printf("%s%s: $%s%n", "  ".repeat(depth), allocator.name(i), BudgetAllocator.formatCents(allocator.amount(i)));
+        }
+        if (allocationFile != null) out.println("Budget allocation saved to " + allocationFile);
+    }
+
+    private static class Category {
+        String name;
+        int priority;
+
+        Category(String name, int priority) {
+            this.name = name;
+            this.priority = Math.max(1, Math.min(10, priority));
+        }
+    }
+
+    // Algorithm 4: Expense Clustering (K-Means)
+    private static void runExpenseClustering() {
+        try {
+            System.out.print("Enter number of clusters (k): ");
+            int k = Integer.parseInt(scanner.nextLine());
+
+            String seeding = promptWithDefault("Seeding (random/kmeans++)", "kmeans++");
+            int maxIterations = Integer.parseInt(promptWithDefault("Maximum iterations", String.valueOf(KMeansEngine.DEFAULT_MAX_ITERATIONS)));
+            double tolerance = Double.parseDouble(promptWithDefault("Convergence tolerance", String.valueOf(KMeansEngine.TOLERANCE)));
+            int batchSize = Integer.parseInt(promptWithDefault("Mini-batch size (0 = full passes)", "0"));
+            KMeansEngine.Assignment assignment = batchSize > 0 ? KMeansEngine.Assignment.EXHAUSTIVE
+                    : KMeansEngine.Assignment.parse(promptWithDefault("Assignment (exhaustive/hamerly)", "hamerly"));
+
+            expenseClustering(Paths.get("expenses.csv"), k, seeding, maxIterations, tolerance, batchSize, assignment,
+                    random, Paths.get("expense_clusters.csv"), Paths.get("expense_centroids.csv"), System.out);
+        } catch (IOException e) {
+            System.out.println("Error reading expenses: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    // Also saves the model that online clustering continues from
+    static void expenseClustering(Path expensesFile, int k, String seeding, int maxIterations, double tolerance,
+                                  int batchSize, KMeansEngine.Assignment assignment, Random rng, Path clustersFile,
+                                  Path modelFile, PrintStream out) throws IOException {
+        long ledgerBytes = Files.size(expensesFile);
+        StageEvent stage = Metrics.start("clustering", "parse");
+        CsvLoader.ExpenseColumns expenses = DatasetCache.expenses(expensesFile);
+        Metrics.end(stage, expenses.size(), "rows", ledgerBytes);
+
+        stage = Metrics.start("clustering", "fit");
+        KMeansEngine engine = new KMeansEngine(expenses.amounts(), expenses.dates(), k);
+        int[] seeds = seeding.equalsIgnoreCase("random")
+                ? KMeansEngine.randomSeeds(expenses.size(), k, rng)
+                : KMeansEngine.kMeansPlusPlusSeeds(expenses.amounts(), expenses.dates(), k, rng);
+        KMeansEngine.Result result = batchSize > 0
+                ? engine.fitMiniBatch(seeds, batchSize, maxIterations, tolerance, rng)
+                : engine.fit(seeds, maxIterations, tolerance, assignment);
+        Metrics.end(stage, result.iterations(), "iterations");
+
+        stage = Metrics.start("clustering", "write");
+        saveClustersToFile(expenses, result.assignments(), k, clustersFile);
+        OnlineExpenseClusterer.fromFit(result, ledgerBytes).save(modelFile);
+        Metrics.end(stage, expenses.size(), "rows", clustersFile);
+        out.printf("Expense clusters saved to %s (%d iterations, %s, inertia %.2f)%n", clustersFile,
+                result.iterations(), result.converged() ? "converged" : "iteration cap reached", result.inertia());
+        out.printf("Distance computations: %,d of %,d (%.1f%% skipped)%n",
+                result.distances(), result.exhaustiveDistances(), 100 * result.skippedFraction());
+    }
+
+    // Algorithm 4b: clusters only the expenses appended to expenses.csv since the model
+    // saved by the last clustering run, refitting everything only once the clusters drift
+    private static void runOnlineExpenseClustering() {
+        if (!Files.exists(Paths.get("expense_centroids.csv"))) {
+            System.out.println("No clustering model yet; run Expense Clustering first.");
+            return;
+        }
+        try {
+            double threshold = Double.parseDouble(promptWithDefault("Drift threshold (fraction of half the centroid gap)",
+                    String.valueOf(OnlineExpenseClusterer.DEFAULT_DRIFT_THRESHOLD)));
+            onlineExpenseClustering(Paths.get("expenses.csv"), Paths.get("expense_centroids.csv"),
+                    Paths.get("expense_clusters.csv"), threshold, System.out);
+        } catch (IOException e) {
+            System.out.println("Error updating clusters: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    static void onlineExpenseClustering(Path expensesFile, Path modelFile, Path clustersFile, double threshold,
+                                        PrintStream out) throws IOException {
+        if (!Files.exists(modelFile)) {
+            throw new IllegalArgumentException("No clustering model at " + modelFile + "; run expense clustering first.");
+        }
+        OnlineExpenseClusterer clusterer = OnlineExpenseClusterer.load(modelFile);
+        long offset = clusterer.offset();
+        StageEvent stage = Metrics.start("online-clustering", "update");
+        OnlineExpenseClusterer.Update update = clusterer.update(expensesFile, threshold,
+                KMeansEngine.DEFAULT_MAX_ITERATIONS, KMeansEngine.TOLERANCE);
+        Metrics.end(stage, update.rows().size(), "rows", clusterer.offset() - offset);
+
+        stage = Metrics.start("online-clustering", "write");
+        if (update.refit() != null) {
+            saveClustersToFile(update.ledger(), update.refit().assignments(), clusterer.clusters(), clustersFile);
+            out.printf("%d new expenses; drift %.2f passed %.2f, refitted all %d expenses (%d iterations)%n",
+                    update.rows().size(), update.drift(), threshold, update.ledger().size(), update.refit().iterations());
+        } else {
+            appendClustersToFile(update.rows(), update.clusters(), clusterer.clusters(), clustersFile);
+            out.printf("%d new expenses appended to %s (drift %.2f)%n", update.rows().size(), clustersFile, update.drift());
+        }
+        clusterer.save(modelFile);
+        Metrics.end(stage, update.rows().size(), "rows");
+    }
+
+    static class Expense {
+        double amount;
+        double date;
+
+        Expense(double amount, double date) {
+            this.amount = amount;
+            this.date = date;
+        }
+
+        double distance(Expense other) {
+            return Math.sqrt(Math.pow(this.amount - other.amount, 2) + Math.pow(this.date - other.date, 2));
+        }
+    }
+
+    // Object-based reference for KMeansEngine; rng picks the k starting centroids
+    static List<List<Expense>> kMeansClustering(List<Expense> expenses, int k, Random rng) {
+        List<Expense> centroids = new ArrayList<>();
+        for (int i = 0; i < k; i++) {
+            centroids.add(expenses.get(rng.nextInt(expenses.size())));
+        }
+
+        List<List<Expense>> clusters = new ArrayList<>();
+        for (int i = 0; i < k; i++) {
+            clusters.add(new ArrayList<>());
+        }
+
+        boolean changed = true;
+        while (changed) {
+            for (List<Expense> cluster : clusters) {
+                cluster.clear();
+            }
+
+            for (Expense expense : expenses) {
+                int closest = 0;
+                double minDistance = expense.distance(centroids.getFirst());
+                for (int i = 1; i < centroids.size(); i++) {
+                    double distance = expense.distance(centroids.get(i));
+                    if (distance < minDistance) {
+                        minDistance = distance;
+                        closest = i;
+                    }
+                }
+                clusters.get(closest).add(expense);
+            }
+
+            changed = false;
+            for (int i = 0; i < k; i++) {
+                if (clusters.get(i).isEmpty()) continue;
+                double avgAmount = clusters.get(i).stream().mapToDouble(e -> e.amount).average().orElse(0);
+                double avgDate = clusters.get(i).stream().mapToDouble(e -> e.date).average().orElse(0);
+                Expense newCentroid = new Expense(avgAmount, avgDate);
+                if (newCentroid.distance(centroids.get(i)) > 0.001) {
+                    centroids.set(i, newCentroid);
+                    changed = true;
+                }
+            }
+        }
+        return clusters;
+    }
+
+    private static void saveClustersToFile(CsvLoader.ExpenseColumns expenses, int[] assignments, int k,
+                                           Path file) throws IOException {
+        writeClusters(expenses, assignments, k, false, Files.newBufferedWriter(file));
+    }
+
+    // Adds "Cluster N:" blocks for the new rows only, so a cluster can appear more than once;
+    // its members are the rows of all its blocks
+    private static void appendClustersToFile(CsvLoader.ExpenseColumns expenses, int[] assignments, int k,
+                                             Path file) throws IOException {
+        if (expenses.size() == 0) return;
+        writeClusters(expenses, assignments, k, true, Files.newBufferedWriter(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+    }
+
+    private static void writeClusters(CsvLoader.ExpenseColumns expenses, int[] assignments, int k,
+                                      boolean skipEmpty, BufferedWriter out) throws IOException {
+        // Counting sort of the rows by cluster keeps the original row order inside every cluster
+        int[] start = new int[k + 1];
+        for (int cluster : assignments) start[cluster + 1]++;
+        for (int j = 0; j < k; j++) start[j + 1] += start[j];
+        int[] order = new int[assignments.length];
+        int[] next = Arrays.copyOf(start, k);
+        for (int i = 0; i < assignments.length; i++) order[next[assignments[i]]++] = i;
+
+        try (BufferedWriter writer = out) {
+            for (int j = 0; j < k; j++) {
+                if (skipEmpty && start[j] == start[j + 1]) continue;
+                writer.write("Cluster " + (j + 1) + ":");
+                writer.newLine();
+                for (int p = start[j]; p < start[j + 1]; p++) {
+                    writer.write(String.format("%.2f,%.2f", expenses.amounts()[order[p]], expenses.dates()[order[p]]));
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    // Algorithm 5: Debt Repayment Optimization
+    private static void runDebtRepaymentOptimization() {
+        try {
+            System.out.print("Enter number of debts: ");
+            int numDebts = Integer.parseInt(scanner.nextLine());
+            if (numDebts < 0) throw new IllegalArgumentException("Number of debts must not be negative");
+            double[] balances = new double[numDebts];
+            double[] rates = new double[numDebts];
+
+            for (int i = 0; i < numDebts; i++) {
+                System.out.print("Enter balance for debt " + (i + 1) + ": ");
+                balances[i] = Double.parseDouble(scanner.nextLine());
+                System.out.print("Enter interest rate for debt " + (i + 1) + " (%): ");
+                rates[i] = Double.parseDouble(scanner.nextLine()) / 100;
+            }
+
+            System.out.print("Enter monthly payment amount: ");
+            double monthlyPayment = Double.parseDouble(scanner.nextLine());
+
+            DebtPlanner.Strategy strategy = DebtPlanner.Strategy.parse(
+                    promptWithDefault("Strategy (avalanche/snowball/min-interest)", "avalanche"));
+            debtRepayment(balances, rates, monthlyPayment, strategy, System.out);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    // rates are annual fractions
+    static void debtRepayment(double[] balances, double[] rates, double monthlyPayment, DebtPlanner.Strategy strategy,
+                              PrintStream out) {
+        StageEvent stage = Metrics.start("debt", "plan");
+        DebtPlanner.Plan plan = DebtPlanner.plan(strategy, balances, rates, monthlyPayment);
+        Metrics.end(stage, plan.segments().size(), "segments");
+        out.println("\nDebt Repayment Plan:");
+        for (DebtPlanner.Segment segment : plan.segments()) {
+            if (segment.months() > 1) {
+                out.printf("Months %d-%d: pay $%.2f/month to debt %d (%.2f%% interest, $%.2f owed), final payment $%.2f%n",
+                        segment.firstMonth(), segment.lastMonth(), segment.payment(), segment.debt() + 1,
+                        segment.rate() * 100, segment.startBalance(), segment.finalPayment());
+            } else {
+                out.printf("Month %d: pay off debt %d (%.2f%% interest) with $%.2f%n",
+                        segment.firstMonth(), segment.debt() + 1, segment.rate() * 100, segment.finalPayment());
+            }
+        }
+        out.printf("Debt free after %d months; total paid $%.2f, of which interest $%.2f%n",
+                plan.months(), plan.totalPaid(), plan.totalInterest());
+    }
+
+    // Algorithm 5b: avalanche, snowball and minimum-interest plans for every portfolio in a file
+    private static void runDebtStrategyBatch() {
+        try {
+            String input = promptWithDefault("Portfolio file", "debt_portfolios.csv");
+            String output = promptWithDefault("Summary file", "debt_strategies.csv");
+            debtStrategyBatch(Paths.get(input), Paths.get(output), System.out);
+        } catch (IOException e) {
+            System.out.println("Error processing portfolios: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    static void debtStrategyBatch(Path portfoliosFile, Path summaryFile, PrintStream out) throws IOException {
+        StageEvent stage = Metrics.start("debt-batch", "plan");
+        DebtBatch.Summary summary = DebtBatch.run(portfoliosFile);
+        Metrics.end(stage, summary.outcomes().size(), "portfolios", portfoliosFile);
+        DebtBatch.printSummary(summary, out);
+        stage = Metrics.start("debt-batch", "write");
+        DebtBatch.write(summary, summaryFile);
+        Metrics.end(stage, summary.outcomes().size(), "portfolios", summaryFile);
+        out.println("Strategy summary saved to " + summaryFile);
+    }
+
+    static class Debt {
+        double balance;
+        double interestRate;
+
+        Debt(double balance, double interestRate) {
+            this.balance = balance;
+            this.interestRate = interestRate;
+        }
+    }
+
+    // Month-by-month reference for DebtPlanner.avalanche; never returns if the payment
+    // does not outgrow the interest of the debt it targets
+    static List<String> optimizeDebtRepayment(List<Debt> debts, double monthlyPayment) {
+        List<String> plan = new ArrayList<>();
+        while (debts.stream().anyMatch(d -> d.balance > 0)) {
+            debts.forEach(d -> d.balance *= (1 + d.interestRate / 12)); // Monthly interest
+            Debt highestInterest = debts.stream()
+                    .filter(d -> d.balance > 0)
+                    .max(Comparator.comparingDouble(d -> d.interestRate))
+                    .orElse(null);
+            if (highestInterest == null) break;
+
+            double payment = Math.min(monthlyPayment, highestInterest.balance);
+            highestInterest.balance -= payment;
+            plan.add(String.format("Pay $%.2f to debt with %.2f%% interest, remaining: $%.2f",
+                    payment, highestInterest.interestRate * 100, highestInterest.balance));
+        }
+        return plan;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,405 @@
+package finance;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+// Several price indicators declared up front and computed in one pass over a double[].
+// The prices are walked in blocks small enough to stay in cache; every indicator state
+// advances over the block and writes its slice of a primitive output column before the
+// next block is read. Indicators with the same period share a window, so sma:20, std:20
+// and the 20-bar Bollinger bands cost one running sum.
+// Columns are aligned like MovingAverageEngine.simpleMovingAverage(values, period, start):
+// element j is the value at bar start + j. SMA windows are summed in the engine's order,
+// so a pipeline SMA equals the engine's to the last bit.
+final class IndicatorPipeline {
+    static final int BLOCK = 1 << 12;
+
+    private IndicatorPipeline() {}
+
+    enum Kind { PRICE, SMA, EMA, STD, UPPER, LOWER, RSI }
+
+    // "price", "sma:20", "ema:12", "std:20", "upper:20:2" and "lower:20:2" (Bollinger
+    // bands 2 standard deviations from sma:20) or "rsi:14" (Wilder's smoothing)
+    record Indicator(Kind kind, int period, double width) {
+        Indicator {
+            if (kind != Kind.PRICE && period <= 0) {
+                throw new IllegalArgumentException("Period must be positive: " + period);
+            }
+            if ((kind == Kind.UPPER || kind == Kind.LOWER) && !(width > 0)) {
+                throw new IllegalArgumentException("Band width must be positive: " + width);
+            }
+        }
+
+        static Indicator parse(String spec) {
+            String[] parts = spec.trim().toLowerCase().split(":");
+            Kind kind;
+            try {
+                kind = Kind.valueOf(parts[0].toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown indicator: " + spec);
+            }
+            int expected = switch (kind) {
+                case PRICE -> 1;
+                case UPPER, LOWER -> 3;
+                default -> 2;
+            };
+            if (parts.length != expected) throw new IllegalArgumentException("Malformed indicator: " + spec);
+            int period = expected > 1 ? Integer.parseInt(parts[1]) : 0;
+            double width = expected > 2 ? Double.parseDouble(parts[2]) : 0;
+            return new Indicator(kind, period, width);
+        }
+
+        String name() {
+            return switch (kind) {
+                case PRICE -> "price";
+                case UPPER, LOWER -> kind.name().toLowerCase() + ":" + period + ":" + trim(width);
+                default -> kind.name().toLowerCase() + ":" + period;
+            };
+        }
+
+        // First bar with a value
+        int warmup() {
+            return switch (kind) {
+                case PRICE -> 0;
+                case RSI -> period;
+                default -> period - 1;
+            };
+        }
+
+        private static String trim(double value) {
+            return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+        }
+    }
+
+    record Columns(List<Indicator> indicators, int start, double[][] values) {
+        int length() {
+            return values.length == 0 ? 0 : values[0].length;
+        }
+
+        double[] column(Indicator indicator) {
+            int k = indicators.indexOf(indicator);
+            if (k < 0) throw new IllegalArgumentException("Indicator was not computed: " + indicator.name());
+            return values[k];
+        }
+    }
+
+    // Either side of a crossing: an indicator column or a constant level
+    record Operand(Indicator indicator, double level) {
+        static Operand parse(String spec) {
+            try {
+                return new Operand(null, Double.parseDouble(spec));
+            } catch (NumberFormatException e) {
+                return new Operand(Indicator.parse(spec), 0);
+            }
+        }
+
+        String name() {
+            return indicator == null ? Indicator.trim(level) : indicator.name();
+        }
+    }
+
+    // left crosses above (">") or below ("<") right from one bar to the next,
+    // e.g. "sma:10>sma:50", "price<lower:20:2" or "rsi:14>30"
+    record Cross(Operand left, boolean upward, Operand right) {
+        static Cross parse(String spec) {
+            int at = Math.max(spec.indexOf('>'), spec.indexOf('<'));
+            if (at <= 0 || at == spec.length() - 1 || spec.indexOf('>') >= 0 && spec.indexOf('<') >= 0) {
+                throw new IllegalArgumentException("Expected <indicator>'>'<indicator or level> (or '<'), got " + spec);
+            }
+            Cross cross = new Cross(Operand.parse(spec.substring(0, at)), spec.charAt(at) == '>',
+                    Operand.parse(spec.substring(at + 1)));
+            if (cross.left.indicator == null && cross.right.indicator == null) {
+                throw new IllegalArgumentException("A crossing needs at least one indicator: " + spec);
+            }
+            return cross;
+        }
+
+        String name() {
+            return left.name() + (upward ? ">" : "<") + right.name();
+        }
+
+        List<Indicator> indicators() {
+            List<Indicator> used = new ArrayList<>(2);
+            if (left.indicator != null) used.add(left.indicator);
+            if (right.indicator != null) used.add(right.indicator);
+            return used;
+        }
+
+        // Whether the crossing happens between elements i - 1 and i of the columns
+        Test bind(Columns columns) {
+            double[] l = left.indicator == null ? null : columns.column(left.indicator);
+            double[] r = right.indicator == null ? null : columns.column(right.indicator);
+            double leftLevel = left.level;
+            double rightLevel = right.level;
+            return i -> {
+                double prevLeft = l == null ? leftLevel : l[i - 1];
+                double currLeft = l == null ? leftLevel : l[i];
+                double prevRight = r == null ? rightLevel : r[i - 1];
+                double currRight = r == null ? rightLevel : r[i];
+                return upward ? prevLeft < prevRight && currLeft > currRight
+                        : prevLeft > prevRight && currLeft < currRight;
+            };
+        }
+
+        interface Test {
+            boolean at(int i);
+        }
+    }
+
+    // Comma-separated indicators, e.g. "sma:20,rsi:14"; blank for none
+    static List<Indicator> parseList(String specs) {
+        List<Indicator> indicators = new ArrayList<>();
+        for (String spec : specs.split(",")) {
+            if (!spec.isBlank()) indicators.add(Indicator.parse(spec));
+        }
+        return indicators;
+    }
+
+    // Columns from the first bar every indicator covers
+    static Columns compute(double[] prices, List<Indicator> indicators) {
+        int start = 0;
+        for (Indicator indicator : indicators) start = Math.max(start, indicator.warmup());
+        return compute(prices, indicators, start);
+    }
+
+    static Columns compute(double[] prices, List<Indicator> indicators, int start) {
+        List<Indicator> distinct = List.copyOf(new LinkedHashSet<>(indicators));
+        for (Indicator indicator : distinct) {
+            if (start < indicator.warmup()) {
+                throw new IllegalArgumentException("First bar cannot come before bar " + indicator.warmup()
+                        + " for " + indicator.name());
+            }
+        }
+        int m = distinct.size();
+        int length = Math.max(0, prices.length - start);
+        double[][] values = new double[m][length];
+        if (length == 0 || m == 0) return new Columns(distinct, start, values);
+
+        // One state per distinct period and family, writing every column that derives from it
+        Map<Integer, Window> windows = new HashMap<>();
+        Map<Integer, Ema> emas = new HashMap<>();
+        Map<Integer, Rsi> rsis = new HashMap<>();
+        double[] priceColumn = null;
+        for (int k = 0; k < m; k++) {
+            Indicator indicator = distinct.get(k);
+            double[] column = values[k];
+            switch (indicator.kind()) {
+                case PRICE -> priceColumn = column;
+                case SMA, STD, UPPER, LOWER -> windows.computeIfAbsent(indicator.period(),
+                        p -> new Window(p, start, prices)).attach(indicator, column);
+                case EMA -> emas.computeIfAbsent(indicator.period(), p -> new Ema(p, start, prices)).out = column;
+                case RSI -> rsis.computeIfAbsent(indicator.period(), p -> new Rsi(p, start, prices)).out = column;
+            }
+        }
+
+        for (int from = 0; from < prices.length; from += BLOCK) {
+            int to = Math.min(prices.length, from + BLOCK);
+            for (Window window : windows.values()) window.advance(from, to);
+            for (Ema ema : emas.values()) ema.advance(from, to);
+            for (Rsi rsi : rsis.values()) rsi.advance(from, to);
+            if (priceColumn != null && to > start) {
+                int first = Math.max(from, start);
+                System.arraycopy(prices, first, priceColumn, first - start, to - first);
+            }
+        }
+        return new Columns(distinct, start, values);
+    }
+
+    // day (1-based bar number) followed by one column per indicator
+    static void write(Columns columns, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            StringBuilder line = new StringBuilder("day");
+            for (Indicator indicator : columns.indicators()) line.append(',').append(indicator.name());
+            writer.write(line.toString());
+            writer.newLine();
+            for (int j = 0; j < columns.length(); j++) {
+                line.setLength(0);
+                line.append(columns.start() + j + 1);
+                for (double[] column : columns.values()) line.append(',').append(String.format("%.4f", column[j]));
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    // Sliding window over prices, summed like MovingAverageEngine: the first window ends
+    // at the aligned start, then each bar adds the incoming price and drops the outgoing
+    // one. The deviation uses sums of prices shifted by the window's first price, which
+    // keeps the sum of squares from cancelling on large price levels; those sums are only
+    // kept when a deviation or band column asks for them.
+    private static final class Window {
+        private final int period;
+        private final int start;
+        private final double[] prices;
+        private final double shift;
+        private double sum;
+        private double compensation;
+        private double shifted;
+        private double shiftedCompensation;
+        private double squares;
+        private double squaresCompensation;
+        private double[] mean;
+        private double[] deviation;
+        private double[][] bands = new double[0][];
+        private double[] offsets = new double[0]; // +width for upper, -width for lower
+
+        Window(int period, int start, double[] prices) {
+            this.period = period;
+            this.start = start;
+            this.prices = prices;
+            this.shift = prices[start - period + 1];
+        }
+
+        void attach(Indicator indicator, double[] column) {
+            switch (indicator.kind()) {
+                case SMA -> mean = column;
+                case STD -> deviation = column;
+                case UPPER, LOWER -> {
+                    // Grown once per band at setup, so the per-bar loop reads plain arrays
+                    bands = Arrays.copyOf(bands, bands.length + 1);
+                    offsets = Arrays.copyOf(offsets, offsets.length + 1);
+                    bands[bands.length - 1] = column;
+                    offsets[offsets.length - 1] = indicator.kind() == Kind.UPPER ? indicator.width() : -indicator.width();
+                }
+                default -> throw new IllegalArgumentException("Not a window indicator: " + indicator.name());
+            }
+        }
+
+        // The sums live in locals for the block, so the loop keeps them in registers
+        void advance(int from, int to) {
+            boolean spread = deviation != null || bands.length > 0;
+            double s = sum, c = compensation;
+            double s1 = shifted, c1 = shiftedCompensation;
+            double s2 = squares, c2 = squaresCompensation;
+            for (int t = Math.max(from, start - period + 1); t < to; t++) {
+                double in = prices[t];
+                double next = s + in;
+                c += error(s, in, next);
+                s = next;
+                if (t > start) {
+                    double out = -prices[t - period];
+                    next = s + out;
+                    c += error(s, out, next);
+                    s = next;
+                }
+                if (spread) {
+                    double d = in - shift;
+                    next = s1 + d;
+                    c1 += error(s1, d, next);
+                    s1 = next;
+                    double dd = d * d;
+                    next = s2 + dd;
+                    c2 += error(s2, dd, next);
+                    s2 = next;
+                    if (t > start) {
+                        d = shift - prices[t - period];
+                        next = s1 + d;
+                        c1 += error(s1, d, next);
+                        s1 = next;
+                        dd = -(d * d);
+                        next = s2 + dd;
+                        c2 += error(s2, dd, next);
+                        s2 = next;
+                    }
+                }
+                if (t < start) continue;
+
+                int j = t - start;
+                double m = (s + c) / period;
+                if (mean != null) mean[j] = m;
+                if (spread) {
+                    // Population standard deviation, as Bollinger bands use
+                    double m1 = (s1 + c1) / period;
+                    double sd = Math.sqrt(Math.max(0, (s2 + c2) / period - m1 * m1));
+                    if (deviation != null) deviation[j] = sd;
+                    for (int b = 0; b < bands.length; b++) bands[b][j] = m + offsets[b] * sd;
+                }
+            }
+            sum = s;
+            compensation = c;
+            shifted = s1;
+            shiftedCompensation = c1;
+            squares = s2;
+            squaresCompensation = c2;
+        }
+
+        // Neumaier's correction for next = sum + x
+        private static double error(double sum, double x, double next) {
+            return Math.abs(sum) >= Math.abs(x) ? (sum - next) + x : (x - next) + sum;
+        }
+    }
+
+    // Seeded with the mean of the first period prices, then smoothed by 2 / (period + 1)
+    private static final class Ema {
+        private final int period;
+        private final int start;
+        private final double[] prices;
+        private final double alpha;
+        private double seed;
+        private double value;
+        double[] out;
+
+        Ema(int period, int start, double[] prices) {
+            this.period = period;
+            this.start = start;
+            this.prices = prices;
+            this.alpha = 2.0 / (period + 1);
+        }
+
+        void advance(int from, int to) {
+            for (int t = from; t < to; t++) {
+                double x = prices[t];
+                if (t < period) {
+                    seed += x;
+                    if (t == period - 1) value = seed / period;
+                } else {
+                    value += alpha * (x - value);
+                }
+                if (t >= start) out[t - start] = value;
+            }
+        }
+    }
+
+    // Average gain and loss over the first period changes, then Wilder's smoothing;
+    // 100 with only gains, 50 on a flat stretch
+    private static final class Rsi {
+        private final int period;
+        private final int start;
+        private final double[] prices;
+        private final double decay;
+        private double gain;
+        private double loss;
+        double[] out;
+
+        Rsi(int period, int start, double[] prices) {
+            this.period = period;
+            this.start = start;
+            this.prices = prices;
+            this.decay = (period - 1) / (double) period;
+        }
+
+        void advance(int from, int to) {
+            for (int t = Math.max(from, 1); t < to; t++) {
+                double change = prices[t] - prices[t - 1];
+                double up = Math.max(change, 0);
+                double down = Math.max(-change, 0);
+                if (t <= period) {
+                    gain += up / period;
+                    loss += down / period;
+                } else {
+                    gain = gain * decay + up / period;
+                    loss = loss * decay + down / period;
+                }
+                if (t >= start) out[t - start] = gain + loss == 0 ? 50 : Math.max(0, 100 - 100 * loss / (gain + loss));
+            }
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package finance;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Headless front end: runs a list of analyses in one JVM without prompting.
+// Each job is a line "<type> key=value ..." in a spec file, or a --job argument:
+//     JobRunner jobs.txt
+//     JobRunner --job "montecarlo initial=10000 years=30 sims=1000000 seed=7" --job "debt payment=800"
+// Blank lines and lines starting with # are skipped, and name=... labels a job in the report.
+// --metrics (or -Dfinance.metrics=true) adds the per-stage summary of Metrics at the end.
+// Jobs reading the same unchanged CSV share one parse through DatasetCache, whose hit and
+// miss counts close the report; --snapshots (or -Dfinance.snapshots=true) also keeps a
+// binary snapshot next to each CSV so the next run maps it instead of parsing.
+// Jobs run concurrently unless one writes a file another reads or writes; then the later
+// job waits for the earlier one, and is skipped if that one failed. Each job's output is
+// collected and printed in spec order with its wall time, and the exit status is 1 if
+// any job failed.
+final class JobRunner {
+    private static final Random random = new Random();
+
+    private JobRunner() {}
+
+    // Analysis with the files it reads and writes, used to order conflicting jobs
+    private interface Action {
+        void run(PrintStream out) throws IOException;
+    }
+
+    record Job(String name, String type, Set<Path> reads, Set<Path> writes, Action action) {
+        Job {
+            reads = normalize(reads);
+            writes = normalize(writes);
+        }
+
+        private static Set<Path> normalize(Set<Path> paths) {
+            Set<Path> normalized = new HashSet<>();
+            for (Path path : paths) normalized.add(path.toAbsolutePath().normalize());
+            return normalized;
+        }
+
+        boolean conflictsWith(Job earlier) {
+            for (Path path : earlier.writes) {
+                if (reads.contains(path) || writes.contains(path)) return true;
+            }
+            for (Path path : writes) {
+                if (earlier.reads.contains(path)) return true;
+            }
+            return false;
+        }
+    }
+
+    record Outcome(Job job, String output, String error, double millis) {
+        boolean failed() {
+            return error != null;
+        }
+    }
+
+    public static void main(String[] args) {
+        List<Job> jobs;
+        try {
+            jobs = parseArguments(args);
+        } catch (IOException e) {
+            System.err.println("Error reading job spec: " + e.getMessage());
+            System.exit(2);
+            return;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: JobRunner [--metrics] [--snapshots] <spec file> | --job \"<type> key=value ...\" [--job ...]");
+            System.exit(2);
+            return;
+        }
+        List<Outcome> outcomes = run(jobs, Runtime.getRuntime().availableProcessors());
+        if (outcomes.stream().anyMatch(Outcome::failed)) System.exit(1);
+    }
+
+    static List<Job> parseArguments(String[] args) throws IOException {
+        List<String> lines = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--metrics")) {
+                Metrics.enable();
+            } else if (args[i].equals("--snapshots")) {
+                DatasetCache.enableSnapshots();
+            } else if (args[i].equals("--job")) {
+                if (++i == args.length) throw new IllegalArgumentException("--job needs a job description");
+                lines.add(args[i]);
+                lineNumbers.add(lines.size());
+            } else {
+                List<String> spec = Files.readAllLines(Paths.get(args[i]));
+                for (int n = 0; n < spec.size(); n++) {
+                    lines.add(spec.get(n));
+                    lineNumbers.add(n + 1);
+                }
+            }
+        }
+        List<Job> jobs = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            try {
+                jobs.add(parse(line));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Job " + lineNumbers.get(i) + " (" + line + "): " + e.getMessage());
+            }
+        }
+        if (jobs.isEmpty()) throw new IllegalArgumentException("No jobs given");
+        return jobs;
+    }
+
+    static Job parse(String line) {
+        String[] words = line.trim().split("\\s+");
+        String type = words[0].toLowerCase();
+        Params p = new Params(words);
+        String name = p.text("name", type);
+        Job job = switch (type) {
+            case "crossover" -> {
+                Path prices = p.path("prices", "stock_prices.csv");
+                Path signals = p.path("out", "trading_signals.csv");
+                int shortPeriod = p.integer("short", 10);
+                int longPeriod = p.integer("long", 50);
+                yield new Job(name, type, Set.of(prices), Set.of(signals),
+                        out -> FinanceAnalyzer.movingAverageCrossover(prices, shortPeriod, longPeriod, signals, out));
+            }
+            case "streaming" -> {
+                Path prices = p.path("prices", "stock_prices.csv");
+                Path signals = p.path("out", "trading_signals.csv");
+                int shortPeriod = p.integer("short", 10);
+                int longPeriod = p.integer("long", 50);
+                yield new Job(name, type, Set.of(prices), Set.of(signals),
+                        out -> FinanceAnalyzer.streamingCrossover(prices, shortPeriod, longPeriod, signals, out));
+            }
+            case "sweep" -> {
+                Path prices = p.path("prices", "stock_prices.csv");
+                Path ranking = p.path("out", "crossover_sweep.csv");
+                int[] shortPeriods = CrossoverSweep.parseRange(p.text("short", "5:50:5"));
+                int[] longPeriods = CrossoverSweep.parseRange(p.text("long", "20:200:10"));
+                int top = p.integer("top", 10);
+                yield new Job(name, type, Set.of(prices), Set.of(ranking), out -> FinanceAnalyzer.crossoverSweep(
+                        prices, shortPeriods, longPeriods, top, ranking, out));
+            }
+            case "indicators" -> {
+                Path prices = p.path("prices", "stock_prices.csv");
+                Path signals = p.path("out", "trading_signals.csv");
+                Path columns = p.path("columns", "indicators.csv");
+                IndicatorPipeline.Cross buy = IndicatorPipeline.Cross.parse(p.text("buy", "ema:12>ema:26"));
+                IndicatorPipeline.Cross sell = IndicatorPipeline.Cross.parse(p.text("sell", "ema:12<ema:26"));
+                List<IndicatorPipeline.Indicator> extra = IndicatorPipeline.parseList(p.text("also", ""));
+                yield new Job(name, type, Set.of(prices), Set.of(signals, columns), out ->
+                        FinanceAnalyzer.indicatorSignals(prices, buy, sell, extra, signals, columns, out));
+            }
+            case "backtest" -> {
+                Path prices = p.path("dir", "prices");
+                Path signals = p.path("out", "signals");
+                Path summary = p.path("summary", "backtest_summary.csv");
+                int shortPeriod = p.integer("short", 10);
+                int longPeriod = p.integer("long", 50);
+                String suffix = p.text("format", "csv").equalsIgnoreCase("binary") ? ".bin" : ".csv";
+                int io = p.integer("io", MultiSymbolBacktest.DEFAULT_IO_PARALLELISM);
+                yield new Job(name, type, Set.of(prices), Set.of(signals, summary), out -> FinanceAnalyzer.multiSymbolBacktest(
+                        prices, shortPeriod, longPeriod, signals, suffix, io, summary, out));
+            }
+            case "montecarlo" -> {
+                double initial = p.number("initial", 10000);
+                int years = p.integer("years", 30);
+                long simulations = p.longInteger("sims", 1_000_000);
+                long seed = p.seed();
+                PathKernel kernel = PathKernel.parse(p.text("kernel", PathKernel.DEFAULT.name()));
+                Path results = p.path("out", null);
+                yield new Job(name, type, Set.of(), results == null ? Set.of() : Set.of(results),
+                        out -> FinanceAnalyzer.monteCarlo(initial, years, simulations, seed, kernel, results, out));
+            }
+            case "montecarlo-auto" -> {
+                double initial = p.number("initial", 10000);
+                int years = p.integer("years", 30);
+                double targetError = p.number("error", 0.1) / 100;
+                double confidence = p.number("confidence", 95) / 100;
+                long maxPaths = p.longInteger("max-sims", 100_000_000);
+                double maxSeconds = p.number("max-seconds", 60);
+                long seed = p.seed();
+                PathKernel kernel = PathKernel.parse(p.text("kernel", PathKernel.DEFAULT.name()));
+                yield new Job(name, type, Set.of(), Set.of(), out -> FinanceAnalyzer.adaptiveMonteCarlo(
+                        initial, years, targetError, confidence, maxPaths, maxSeconds, seed, kernel, out));
+            }
+            case "variance" -> {
+                double initial = p.number("initial", 10000);
+                int years = p.integer("years", 30);
+                long simulations = p.longInteger("sims", 1_000_000);
+                long seed = p.seed();
+                String modes = p.text("mode", "all");
+                yield new Job(name, type, Set.of(), Set.of(),
+                        out -> FinanceAnalyzer.varianceReducedMonteCarlo(initial, years, simulations, seed, modes, out));
+            }
+            case "budget" -> {
+                Path categories = p.path("categories", null);
+                if (categories == null) throw new IllegalArgumentException("budget needs categories=<file>");
+                long totalCents = BudgetAllocator.toCents(p.number("total", 0));
+                Path allocation = p.path("out", "budget_allocation.csv");
+                yield new Job(name, type, Set.of(categories), Set.of(allocation), out -> FinanceAnalyzer.budgetAllocation(
+                        FinanceAnalyzer.loadBudget(categories), totalCents, allocation, out));
+            }
+            case "clustering" -> {
+                Path expenses = p.path("expenses", "expenses.csv");
+                Path clusters = p.path("out", "expense_clusters.csv");
+                Path model = p.path("model", "expense_centroids.csv");
+                int k = p.integer("k", 3);
+                String seeding = p.text("seeding", "kmeans++");
+                int maxIterations = p.integer("max-iterations", KMeansEngine.DEFAULT_MAX_ITERATIONS);
+                double tolerance = p.number("tolerance", KMeansEngine.TOLERANCE);
+                int batchSize = p.integer("batch", 0);
+                KMeansEngine.Assignment assignment = KMeansEngine.Assignment.parse(p.text("assignment", "hamerly"));
+                long seed = p.seed();
+                yield new Job(name, type, Set.of(expenses), Set.of(clusters, model), out -> {
+                    out.println("Seed " + seed);
+                    FinanceAnalyzer.expenseClustering(expenses, k, seeding, maxIterations, tolerance, batchSize,
+                            assignment, new Random(seed), clusters, model, out);
+                });
+            }
+            case "online-clustering" -> {
+                Path expenses = p.path("expenses", "expenses.csv");
+                Path clusters = p.path("out", "expense_clusters.csv");
+                Path model = p.path("model", "expense_centroids.csv");
+                double threshold = p.number("threshold", OnlineExpenseClusterer.DEFAULT_DRIFT_THRESHOLD);
+                // The model is read and rewritten, and the clusters file may only be appended to
+                yield new Job(name, type, Set.of(expenses, model, clusters), Set.of(clusters, model),
+                        out -> FinanceAnalyzer.onlineExpenseClustering(expenses, model, clusters, threshold, out));
+            }
+            case "debt" -> {
+                double[][] debts = parseDebts(p.text("debts", "5000:18,12000:6"));
+                double payment = p.number("payment", 500);
+                DebtPlanner.Strategy strategy = DebtPlanner.Strategy.parse(p.text("strategy", "avalanche"));
+                yield new Job(name, type, Set.of(), Set.of(),
+                        out -> FinanceAnalyzer.debtRepayment(debts[0], debts[1], payment, strategy, out));
+            }
+            case "debt-batch" -> {
+                Path portfolios = p.path("portfolios", "debt_portfolios.csv");
+                Path summary = p.path("out", "debt_strategy_summary.csv");
+                yield new Job(name, type, Set.of(portfolios), Set.of(summary),
+                        out -> FinanceAnalyzer.debtStrategyBatch(portfolios, summary, out));
+            }
+            default -> throw new IllegalArgumentException("Unknown job type: " + words[0]);
+        };
+        p.checkAllUsed();
+        return job;
+    }
+
+    // "balance:rate%,balance:rate%,..." into balances and annual rate fractions
+    private static double[][] parseDebts(String spec) {
+        String[] entries = spec.split(",");
+        double[][] debts = new double[2][entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            String[] parts = entries[i].split(":");
+            if (parts.length != 2) throw new IllegalArgumentException("Debts are balance:rate pairs, got " + entries[i]);
+            debts[0][i] = Double.parseDouble(parts[0]);
+            debts[1][i] = Double.parseDouble(parts[1]) / 100;
+        }
+        return debts;
+    }
+
+    // Runs the jobs on up to threads workers; each starts once every earlier job it
+    // conflicts with has finished. Reports are printed in spec order as they complete.
+    static List<Outcome> run(List<Job> jobs, int threads) {
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, jobs.size())));
+        List<CompletableFuture<Outcome>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < jobs.size(); i++) {
+                Job job = jobs.get(i);
+                List<CompletableFuture<Outcome>> before = new ArrayList<>();
+                for (int j = 0; j < i; j++) {
+                    if (job.conflictsWith(jobs.get(j))) before.add(futures.get(j));
+                }
+                CompletableFuture<Outcome> future = CompletableFuture.allOf(before.toArray(CompletableFuture[]::new))
+                        .thenApplyAsync(ignored -> {
+                            for (CompletableFuture<Outcome> earlier : before) {
+                                Outcome outcome = earlier.join();
+                                if (outcome.failed()) {
+                                    return new Outcome(job, "", "skipped, depends on failed job " + outcome.job().name(), 0);
+                                }
+                            }
+                            return execute(job);
+                        }, pool);
+                futures.add(future);
+            }
+
+            List<Outcome> outcomes = new ArrayList<>();
+            double busyMillis = 0;
+            for (int i = 0; i < futures.size(); i++) {
+                Outcome outcome = futures.get(i).join();
+                outcomes.add(outcome);
+                busyMillis += outcome.millis();
+                System.out.printf("[%d/%d] %s (%s) %s %.1f ms%n", i + 1, jobs.size(), outcome.job().name(),
+                        outcome.job().type(), outcome.failed() ? "FAILED" : "OK", outcome.millis());
+                System.out.print(outcome.output());
+                if (outcome.failed()) System.out.println("Error: " + outcome.error());
+            }
+            double wallMillis = (System.nanoTime() - start) / 1e6;
+            long failed = outcomes.stream().filter(Outcome::failed).count();
+            System.out.printf("%d jobs, %d failed; %.1f ms wall time for %.1f ms of job time%n",
+                    jobs.size(), failed, wallMillis, busyMillis);
+            DatasetCache.printStats(System.out);
+            if (Metrics.enabled()) {
+                System.out.println("\nStage metrics:");
+                Metrics.printSummary(System.out);
+            }
+            return outcomes;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Outcome execute(Job job) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buffer, true, StandardCharsets.UTF_8);
+        String error = null;
+        long start = System.nanoTime();
+        try {
+            job.action().run(out);
+        } catch (IOException e) {
+            error = "I/O error: " + e.getMessage();
+        } catch (RuntimeException e) {
+            error = e.getMessage() != null ? e.getMessage() : e.toString();
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        return new Outcome(job, buffer.toString(StandardCharsets.UTF_8), error, millis);
+    }
+
+    // key=value parameters of one job; keys that no job reads are reported as mistakes
+    private static final class Params {
+        private final Map<String, String> values = new LinkedHashMap<>();
+        private final Set<String> used = new HashSet<>();
+
+        Params(String[] words) {
+            for (int i = 1; i < words.length; i++) {
+                int eq = words[i].indexOf('=');
+                if (eq <= 0) throw new IllegalArgumentException("Expected key=value, got " + words[i]);
+                if (values.put(words[i].substring(0, eq).toLowerCase(), words[i].substring(eq + 1)) != null) {
+                    throw new IllegalArgumentException("Parameter given twice: " + words[i].substring(0, eq));
+                }
+            }
+        }
+
+        String text(String key, String fallback) {
+            used.add(key);
+            return values.getOrDefault(key, fallback);
+        }
+
+        Path path(String key, String fallback) {
+            String value = text(key, fallback);
+            return value == null ? null : Paths.get(value);
+        }
+
+        int integer(String key, int fallback) {
+            String value = text(key, null);
+            return value == null ? fallback : Integer.parseInt(value);
+        }
+
+        long longInteger(String key, long fallback) {
+            String value = text(key, null);
+            return value == null ? fallback : Long.parseLong(value.replace("_", ""));
+        }
+
+        double number(String key, double fallback) {
+            String value = text(key, null);
+            return value == null ? fallback : Double.parseDouble(value);
+        }
+
+        // A missing seed is drawn at random; the job reports the seed it used
+        long seed() {
+            String value = text("seed", null);
+            return value == null ? random.nextLong() : Long.parseLong(value);
+        }
+
+        void checkAllUsed() {
+            for (String key : values.keySet()) {
+                if (!used.contains(key)) throw new IllegalArgumentException("Unknown parameter: " + key);
+            }
+        }
+    }
+}
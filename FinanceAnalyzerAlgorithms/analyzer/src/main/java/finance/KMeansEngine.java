@@ -0,0 +1,472 @@
+package finance;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+// Structure-of-arrays k-means over expense amounts and dates.
+// Points are assigned in fixed chunks on the fork-join pool, and every chunk
+// accumulates its own per-cluster sums and counts during the same pass, so the
+// centroid update is a small reduction over chunks instead of a second pass over
+// the data. Distances are compared squared. All scratch (chunk tasks, partial
+// sums, assignments) is allocated once per engine, so iterations allocate nothing.
+// Seeding is either the original random picks or k-means++; besides full Lloyd
+// passes the engine offers mini-batch k-means (Sculley, 2010) for very large ledgers.
+// Lloyd passes can use Hamerly's bounds (2010) instead of the exhaustive assignment:
+// each point keeps an upper bound on the distance to its centroid and a lower bound
+// on the distance to any other, both widened by how far centroids moved, and only
+// points whose bounds overlap are compared against every centroid. Every bound is
+// widened by a few ulps of the data's extent, more than the rounding in any distance,
+// and a point is only skipped when its bounds are strictly apart; touching bounds get
+// the full lowest-index scan, so the clusters are those of the exhaustive assignment.
+final class KMeansEngine {
+    static final int CHUNK = 1 << 14;
+    static final double TOLERANCE = 0.001;
+    static final int DEFAULT_MAX_ITERATIONS = 300;
+
+    private final double[] amounts;
+    private final double[] dates;
+    private final int k;
+    private final double[] centroidAmounts;
+    private final double[] centroidDates;
+    private final int[] assignments;
+    private final double[] partialAmounts; // chunk * k + cluster
+    private final double[] partialDates;
+    private final long[] partialCounts;
+    private final double[] partialInertia; // per chunk
+    private final long[] partialDistances; // per chunk
+    private final ChunkTask[] tasks;
+
+    // Hamerly state, allocated on the first bounded fit
+    private double[] upper;
+    private double[] lower;
+    private double[] halfGap; // half the distance from each centroid to its nearest other centroid
+    private double[] shift;   // how far each centroid moved in the last update
+    private int farthestShift;
+    private double largestShift;
+    private double secondShift;
+    private boolean bounded;
+    private boolean boundsReady;
+    private double slack;     // rounding margin added to every bound
+
+    enum Assignment {
+        EXHAUSTIVE, HAMERLY;
+
+        static Assignment parse(String name) {
+            for (Assignment assignment : values()) {
+                if (assignment.name().equalsIgnoreCase(name.trim())) return assignment;
+            }
+            throw new IllegalArgumentException("Unknown assignment strategy: " + name);
+        }
+    }
+
+    // inertia is the sum of squared distances to the assigned centroids, for comparing runs;
+    // distances counts point-to-centroid distances actually computed, out of exhaustiveDistances
+    record Result(double[] centroidAmounts, double[] centroidDates, int[] assignments, int iterations,
+                  boolean converged, double inertia, long distances, long exhaustiveDistances) {
+        double skippedFraction() {
+            return exhaustiveDistances == 0 ? 0 : 1 - (double) distances / exhaustiveDistances;
+        }
+    }
+
+    KMeansEngine(double[] amounts, double[] dates, int k) {
+        if (amounts.length != dates.length) throw new IllegalArgumentException("Amount and date columns differ in length");
+        if (k <= 0) throw new IllegalArgumentException("Number of clusters must be positive");
+        if (amounts.length == 0) throw new IllegalArgumentException("No expenses to cluster");
+        this.amounts = amounts;
+        this.dates = dates;
+        this.k = k;
+        this.centroidAmounts = new double[k];
+        this.centroidDates = new double[k];
+        this.assignments = new int[amounts.length];
+
+        int chunks = (amounts.length + CHUNK - 1) / CHUNK;
+        this.partialAmounts = new double[chunks * k];
+        this.partialDates = new double[chunks * k];
+        this.partialCounts = new long[chunks * k];
+        this.partialInertia = new double[chunks];
+        this.partialDistances = new long[chunks];
+        this.tasks = new ChunkTask[chunks];
+        for (int c = 0; c < chunks; c++) {
+            tasks[c] = new ChunkTask(c, c * CHUNK, Math.min(amounts.length, (c + 1) * CHUNK));
+        }
+    }
+
+    // Same seeding as FinanceAnalyzer.kMeansClustering: k random points, repeats allowed
+    static int[] randomSeeds(int n, int k, Random random) {
+        int[] seeds = new int[k];
+        for (int i = 0; i < k; i++) {
+            seeds[i] = random.nextInt(n);
+        }
+        return seeds;
+    }
+
+    // k-means++ seeding: each further seed is drawn with probability proportional to its
+    // squared distance from the nearest seed so far, so seeds are distinct and spread out
+    static int[] kMeansPlusPlusSeeds(double[] amounts, double[] dates, int k, Random random) {
+        int n = amounts.length;
+        int[] seeds = new int[k];
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        seeds[0] = random.nextInt(n);
+        for (int s = 1; s < k; s++) {
+            double ca = amounts[seeds[s - 1]];
+            double cd = dates[seeds[s - 1]];
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                double distance = (amounts[i] - ca) * (amounts[i] - ca) + (dates[i] - cd) * (dates[i] - cd);
+                if (distance < nearest[i]) nearest[i] = distance;
+                total += nearest[i];
+            }
+            if (total == 0) {
+                // Fewer distinct points than clusters: the remaining seeds can only repeat
+                seeds[s] = random.nextInt(n);
+                continue;
+            }
+            double target = random.nextDouble() * total;
+            int pick = n - 1;
+            for (int i = 0; i < n; i++) {
+                target -= nearest[i];
+                if (target < 0 && nearest[i] > 0) {
+                    pick = i;
+                    break;
+                }
+            }
+            seeds[s] = pick;
+        }
+        return seeds;
+    }
+
+    Result fit(int[] seedPoints) {
+        return fit(seedPoints, DEFAULT_MAX_ITERATIONS, TOLERANCE);
+    }
+
+    Result fit(int[] seedPoints, int maxIterations, double tolerance) {
+        return fit(seedPoints, maxIterations, tolerance, Assignment.EXHAUSTIVE);
+    }
+
+    Result fit(int[] seedPoints, int maxIterations, double tolerance, Assignment assignment) {
+        checkSettings(seedPoints.length, maxIterations, tolerance);
+        seedCentroids(seedPoints);
+        return lloyd(maxIterations, tolerance, assignment);
+    }
+
+    // Warm start from existing centroids, e.g. a saved model being refitted
+    Result fit(double[] startAmounts, double[] startDates, int maxIterations, double tolerance, Assignment assignment) {
+        if (startAmounts.length != k || startDates.length != k) throw new IllegalArgumentException("Expected " + k + " centroids");
+        checkSettings(startAmounts.length, maxIterations, tolerance);
+        System.arraycopy(startAmounts, 0, centroidAmounts, 0, k);
+        System.arraycopy(startDates, 0, centroidDates, 0, k);
+        return lloyd(maxIterations, tolerance, assignment);
+    }
+
+    // Lloyd iterations until no centroid moves by more than tolerance, or maxIterations passes
+    private Result lloyd(int maxIterations, double tolerance, Assignment assignment) {
+        bounded = assignment == Assignment.HAMERLY;
+        boundsReady = false;
+        if (bounded && upper == null) {
+            upper = new double[amounts.length];
+            lower = new double[amounts.length];
+            halfGap = new double[k];
+            shift = new double[k];
+            slack = boundSlack(amounts, dates);
+        }
+
+        int iterations = 0;
+        long distances = 0;
+        boolean changed = true;
+        while (changed && iterations < maxIterations) {
+            iterations++;
+            if (bounded) distances += updateHalfGaps();
+            distances += assignAndAccumulate();
+            boundsReady = bounded;
+            changed = updateCentroids(tolerance);
+        }
+        Result result = result(iterations, !changed, distances, (long) iterations * amounts.length * k);
+        bounded = false;
+        return result;
+    }
+
+    // Mini-batch k-means: each iteration samples batchSize points, assigns them to the current
+    // centroids and moves each centroid towards its points with a per-centroid learning rate
+    // 1 / (points seen). Stops when a batch moves no centroid by more than tolerance.
+    // A final full pass produces the assignments.
+    Result fitMiniBatch(int[] seedPoints, int batchSize, int maxIterations, double tolerance, Random random) {
+        checkSettings(seedPoints.length, maxIterations, tolerance);
+        if (batchSize <= 0) throw new IllegalArgumentException("Mini-batch size must be positive");
+        seedCentroids(seedPoints);
+
+        int n = amounts.length;
+        long distances = 0;
+        int[] batch = new int[batchSize];
+        int[] nearest = new int[batchSize];
+        long[] seen = new long[k];
+        double[] startAmounts = new double[k];
+        double[] startDates = new double[k];
+        int iterations = 0;
+        boolean converged = false;
+        while (!converged && iterations < maxIterations) {
+            iterations++;
+            System.arraycopy(centroidAmounts, 0, startAmounts, 0, k);
+            System.arraycopy(centroidDates, 0, startDates, 0, k);
+            for (int b = 0; b < batchSize; b++) {
+                batch[b] = random.nextInt(n);
+                nearest[b] = nearestCentroid(amounts[batch[b]], dates[batch[b]]);
+            }
+            distances += (long) batchSize * k;
+            for (int b = 0; b < batchSize; b++) {
+                int j = nearest[b];
+                double rate = 1.0 / ++seen[j];
+                centroidAmounts[j] += (amounts[batch[b]] - centroidAmounts[j]) * rate;
+                centroidDates[j] += (dates[batch[b]] - centroidDates[j]) * rate;
+            }
+            converged = true;
+            for (int j = 0; j < k; j++) {
+                double da = centroidAmounts[j] - startAmounts[j];
+                double dd = centroidDates[j] - startDates[j];
+                if (da * da + dd * dd > tolerance * tolerance) {
+                    converged = false;
+                    break;
+                }
+            }
+        }
+        distances += assignAndAccumulate();
+        return result(iterations, converged, distances, distances);
+    }
+
+    private void checkSettings(int seeds, int maxIterations, double tolerance) {
+        if (seeds != k) throw new IllegalArgumentException("Expected " + k + " seed points");
+        if (maxIterations <= 0) throw new IllegalArgumentException("Maximum iterations must be positive");
+        if (tolerance < 0) throw new IllegalArgumentException("Tolerance must not be negative");
+    }
+
+    private void seedCentroids(int[] seedPoints) {
+        for (int j = 0; j < k; j++) {
+            centroidAmounts[j] = amounts[seedPoints[j]];
+            centroidDates[j] = dates[seedPoints[j]];
+        }
+    }
+
+    private int nearestCentroid(double a, double d) {
+        int best = 0;
+        double bestDistance = (a - centroidAmounts[0]) * (a - centroidAmounts[0]) + (d - centroidDates[0]) * (d - centroidDates[0]);
+        for (int j = 1; j < k; j++) {
+            double distance = (a - centroidAmounts[j]) * (a - centroidAmounts[j]) + (d - centroidDates[j]) * (d - centroidDates[j]);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = j;
+            }
+        }
+        return best;
+    }
+
+    // Inertia is the one measured by the last assignment pass. A bounded pass does not know
+    // every point's distance, so it is measured against the final centroids instead.
+    private Result result(int iterations, boolean converged, long distances, long exhaustiveDistances) {
+        double inertia = 0;
+        if (bounded) {
+            for (int i = 0; i < amounts.length; i++) {
+                int j = assignments[i];
+                double da = amounts[i] - centroidAmounts[j];
+                double dd = dates[i] - centroidDates[j];
+                inertia += da * da + dd * dd;
+            }
+        } else {
+            for (double chunkInertia : partialInertia) inertia += chunkInertia;
+        }
+        return new Result(centroidAmounts.clone(), centroidDates.clone(), assignments.clone(),
+                iterations, converged, inertia, distances, exhaustiveDistances);
+    }
+
+    // Returns the number of point-to-centroid distances computed
+    private long assignAndAccumulate() {
+        for (ChunkTask task : tasks) {
+            task.reinitialize();
+        }
+        ForkJoinTask.invokeAll(tasks);
+        long distances = 0;
+        for (long chunkDistances : partialDistances) distances += chunkDistances;
+        return distances;
+    }
+
+    // Centroids are means of points, so no distance or centroid move is longer than the
+    // extent; each one is computed to within a few ulps of it
+    private static double boundSlack(double[] amounts, double[] dates) {
+        double largestAmount = 0;
+        double largestDate = 0;
+        for (int i = 0; i < amounts.length; i++) {
+            largestAmount = Math.max(largestAmount, Math.abs(amounts[i]));
+            largestDate = Math.max(largestDate, Math.abs(dates[i]));
+        }
+        return 16 * Math.ulp(2 * (largestAmount + largestDate));
+    }
+
+    // s(j) of Hamerly's algorithm: a point closer to its centroid than half the gap to the
+    // nearest other centroid cannot be closer to any other. Costs k(k-1)/2 centroid distances.
+    private long updateHalfGaps() {
+        Arrays.fill(halfGap, Double.POSITIVE_INFINITY);
+        for (int j = 0; j < k; j++) {
+            for (int m = j + 1; m < k; m++) {
+                double da = centroidAmounts[j] - centroidAmounts[m];
+                double dd = centroidDates[j] - centroidDates[m];
+                double half = 0.5 * Math.sqrt(da * da + dd * dd) - slack;
+                if (half < halfGap[j]) halfGap[j] = half;
+                if (half < halfGap[m]) halfGap[m] = half;
+            }
+        }
+        return (long) k * (k - 1) / 2;
+    }
+
+    // Reduces the chunk partials into new centroids; empty clusters keep their centroid
+    private boolean updateCentroids(double tolerance) {
+        boolean changed = false;
+        if (bounded) Arrays.fill(shift, 0);
+        for (int j = 0; j < k; j++) {
+            double sumAmount = 0;
+            double sumDate = 0;
+            long count = 0;
+            for (int p = j; p < partialCounts.length; p += k) {
+                sumAmount += partialAmounts[p];
+                sumDate += partialDates[p];
+                count += partialCounts[p];
+            }
+            if (count == 0) continue;
+            double amount = sumAmount / count;
+            double date = sumDate / count;
+            double da = amount - centroidAmounts[j];
+            double dd = date - centroidDates[j];
+            if (da * da + dd * dd > tolerance * tolerance) {
+                centroidAmounts[j] = amount;
+                centroidDates[j] = date;
+                changed = true;
+                if (bounded) shift[j] = Math.sqrt(da * da + dd * dd);
+            }
+        }
+        if (bounded) {
+            // Lower bounds shrink by the largest move of any centroid other than the point's own
+            farthestShift = 0;
+            largestShift = 0;
+            secondShift = 0;
+            for (int j = 0; j < k; j++) {
+                if (shift[j] > largestShift) {
+                    secondShift = largestShift;
+                    largestShift = shift[j];
+                    farthestShift = j;
+                } else if (shift[j] > secondShift) {
+                    secondShift = shift[j];
+                }
+            }
+        }
+        return changed;
+    }
+
+    private final class ChunkTask extends RecursiveAction {
+        private final int chunk;
+        private final int from;
+        private final int to;
+
+        ChunkTask(int chunk, int from, int to) {
+            this.chunk = chunk;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            int base = chunk * k;
+            Arrays.fill(partialAmounts, base, base + k, 0);
+            Arrays.fill(partialDates, base, base + k, 0);
+            Arrays.fill(partialCounts, base, base + k, 0);
+            if (bounded) {
+                computeBounded(base);
+                return;
+            }
+            double[] ca = centroidAmounts;
+            double[] cd = centroidDates;
+            double inertia = 0;
+
+            for (int i = from; i < to; i++) {
+                double a = amounts[i];
+                double d = dates[i];
+                int best = 0;
+                double bestDistance = (a - ca[0]) * (a - ca[0]) + (d - cd[0]) * (d - cd[0]);
+                for (int j = 1; j < k; j++) {
+                    double distance = (a - ca[j]) * (a - ca[j]) + (d - cd[j]) * (d - cd[j]);
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        best = j;
+                    }
+                }
+                assignments[i] = best;
+                partialAmounts[base + best] += a;
+                partialDates[base + best] += d;
+                partialCounts[base + best]++;
+                inertia += bestDistance;
+            }
+            partialInertia[chunk] = inertia;
+            partialDistances[chunk] = (long) (to - from) * k;
+        }
+
+        // Hamerly assignment: bounds from the previous pass are widened by the centroid moves,
+        // then the point is skipped, checked against its own centroid only, or fully scanned
+        private void computeBounded(int base) {
+            double[] ca = centroidAmounts;
+            double[] cd = centroidDates;
+            long distances = 0;
+
+            for (int i = from; i < to; i++) {
+                double a = amounts[i];
+                double d = dates[i];
+                int current = assignments[i];
+                double currentDistance = -1; // squared, once computed
+                if (boundsReady) {
+                    upper[i] += shift[current] + slack;
+                    lower[i] -= (current == farthestShift ? secondShift : largestShift) + slack;
+                    double limit = Math.max(halfGap[current], lower[i]);
+                    if (upper[i] >= limit) {
+                        currentDistance = (a - ca[current]) * (a - ca[current]) + (d - cd[current]) * (d - cd[current]);
+                        distances++;
+                        upper[i] = Math.sqrt(currentDistance) + slack;
+                    }
+                    if (upper[i] < limit) {
+                        partialAmounts[base + current] += a;
+                        partialDates[base + current] += d;
+                        partialCounts[base + current]++;
+                        continue;
+                    }
+                }
+
+                // Full scan, keeping the nearest and second-nearest distances for the bounds.
+                // Ties go to the lowest index, as in the exhaustive assignment.
+                int best = -1;
+                double bestDistance = Double.POSITIVE_INFINITY;
+                double secondDistance = Double.POSITIVE_INFINITY;
+                for (int j = 0; j < k; j++) {
+                    double distance;
+                    if (j == current && currentDistance >= 0) {
+                        distance = currentDistance;
+                    } else {
+                        distance = (a - ca[j]) * (a - ca[j]) + (d - cd[j]) * (d - cd[j]);
+                        distances++;
+                    }
+                    if (distance < bestDistance) {
+                        secondDistance = bestDistance;
+                        bestDistance = distance;
+                        best = j;
+                    } else if (distance < secondDistance) {
+                        secondDistance = distance;
+                    }
+                }
+                assignments[i] = best;
+                upper[i] = Math.sqrt(bestDistance) + slack;
+                lower[i] = Math.sqrt(secondDistance) - slack;
+                partialAmounts[base + best] += a;
+                partialDates[base + best] += d;
+                partialCounts[base + best]++;
+            }
+            partialInertia[chunk] = Double.NaN;
+            partialDistances[chunk] = distances;
+        }
+    }
+}
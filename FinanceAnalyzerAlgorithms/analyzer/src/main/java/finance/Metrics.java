@@ -0,0 +1,165 @@
+package finance;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Stage timing for the analyses: every stage is a StageEvent for JFR and, when
+// enabled (-Dfinance.metrics=true or JobRunner --metrics), a row in an end-of-run
+// summary with totals and a latency histogram. Disabled, a stage costs a JFR event
+// that is never committed (the JIT removes it) and a flag check; stages that report
+// the size of the files they read or wrote pass the paths, which are only stat'ed when
+// the stage is recorded.
+//     StageEvent stage = Metrics.start("crossover", "parse");
+//     ...
+//     Metrics.end(stage, rows, "rows", file);
+final class Metrics {
+    // Log-linear histogram: 8 sub-buckets per power of two, so a bucket's upper bound
+    // is within 12.5% of any latency in it
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private static volatile boolean enabled = Boolean.getBoolean("finance.metrics");
+    private static final Map<String, StageStats> stats = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    static void enable() {
+        enabled = true;
+    }
+
+    static boolean enabled() {
+        return enabled;
+    }
+
+    static StageEvent start(String analysis, String stage) {
+        StageEvent event = new StageEvent();
+        event.analysis = analysis;
+        event.stage = stage;
+        if (enabled) event.startNanos = System.nanoTime();
+        event.begin();
+        return event;
+    }
+
+    static void end(StageEvent event, long count, String unit) {
+        end(event, count, unit, 0);
+    }
+
+    static void end(StageEvent event, long count, String unit, long bytes) {
+        event.end();
+        record(event, count, unit, bytes, elapsed(event));
+    }
+
+    // Bytes are the total size of the files
+    static void end(StageEvent event, long count, String unit, Path... files) {
+        event.end();
+        long elapsed = elapsed(event);
+        if (elapsed < 0 && !event.shouldCommit()) return;
+        long bytes = 0;
+        for (Path file : files) {
+            try {
+                bytes += Files.size(file);
+            } catch (IOException e) {
+                // Only the byte count is lost; the stage itself succeeded
+            }
+        }
+        record(event, count, unit, bytes, elapsed);
+    }
+
+    // Nanoseconds since start when the counters are enabled, otherwise -1
+    private static long elapsed(StageEvent event) {
+        return enabled && event.startNanos != 0 ? System.nanoTime() - event.startNanos : -1;
+    }
+
+    private static void record(StageEvent event, long count, String unit, long bytes, long elapsed) {
+        if (event.shouldCommit()) {
+            event.count = count;
+            event.unit = unit;
+            event.bytes = bytes;
+            event.commit();
+        }
+        if (elapsed >= 0) {
+            stats.computeIfAbsent(event.analysis + "/" + event.stage, key -> new StageStats(unit))
+                    .add(elapsed, count, bytes);
+        }
+    }
+
+    static void reset() {
+        stats.clear();
+    }
+
+    // One line per analysis/stage: calls, total and percentile latencies, counts and bytes
+    static void printSummary(PrintStream out) {
+        if (stats.isEmpty()) {
+            out.println("No stage metrics recorded.");
+            return;
+        }
+        out.printf("%-28s %6s %11s %10s %10s %10s %10s %14s %-10s %10s%n", "Stage", "Calls", "Total (ms)",
+                "p50 (ms)", "p90 (ms)", "p99 (ms)", "Max (ms)", "Count", "Unit", "MB");
+        for (Map.Entry<String, StageStats> entry : new TreeMap<>(stats).entrySet()) {
+            StageStats s = entry.getValue();
+            out.printf("%-28s %6d %11.3f %10.3f %10.3f %10.3f %10.3f %,14d %-10s %10.2f%n", entry.getKey(),
+                    s.calls.sum(), s.nanos.sum() / 1e6, s.percentile(0.50) / 1e6, s.percentile(0.90) / 1e6,
+                    s.percentile(0.99) / 1e6, s.max.get() / 1e6, s.count.sum(), s.unit, s.bytes.sum() / 1e6);
+        }
+    }
+
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) Math.max(nanos, 0);
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // Largest latency that falls in the bucket
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    private static final class StageStats {
+        final String unit;
+        final LongAdder calls = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder count = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final AtomicLong max = new AtomicLong();
+        final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        StageStats(String unit) {
+            this.unit = unit;
+        }
+
+        void add(long elapsed, long items, long byteCount) {
+            calls.increment();
+            nanos.add(elapsed);
+            count.add(items);
+            bytes.add(byteCount);
+            histogram.incrementAndGet(bucket(elapsed));
+            max.accumulateAndGet(elapsed, Math::max);
+        }
+
+        // Upper bound of the bucket holding the q-quantile, capped at the largest latency seen
+        long percentile(double q) {
+            long total = 0;
+            for (int b = 0; b < BUCKETS; b++) total += histogram.get(b);
+            long rank = Math.max(1, (long) Math.ceil(q * total));
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += histogram.get(b);
+                if (seen >= rank) return Math.min(upperBound(b), max.get());
+            }
+            return max.get();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package finance;
+
+// Constant-memory summary of Monte Carlo final balances.
+// Welford mean/variance, min and max, plus a log-bucketed quantile sketch with
+// bounded relative error. Accumulators from different workers merge exactly
+// (Chan et al. for the moments, bucket-wise addition for the sketch), so no
+// sample ever has to be retained.
+final class MonteCarloStats {
+    static final double DEFAULT_RELATIVE_ACCURACY = 0.005;
+
+    private long count;
+    private double mean;
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private final QuantileSketch sketch;
+
+    MonteCarloStats() {
+        this(DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    MonteCarloStats(double relativeAccuracy) {
+        this.sketch = new QuantileSketch(relativeAccuracy);
+    }
+
+    void add(double value) {
+        if (Double.isNaN(value)) return;
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        if (value < min) min = value;
+        if (value > max) max = value;
+        sketch.add(value);
+    }
+
+    void merge(MonteCarloStats other) {
+        if (other.count == 0) return;
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+        } else {
+            long total = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / total;
+            m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+            count = total;
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sketch.merge(other.sketch);
+    }
+
+    long count() {
+        return count;
+    }
+
+    double mean() {
+        return count == 0 ? 0 : mean;
+    }
+
+    // Population variance (divides by n), as the menu has always reported
+    double variance() {
+        return count == 0 ? 0 : m2 / count;
+    }
+
+    double sampleVariance() {
+        return count < 2 ? 0 : m2 / (count - 1);
+    }
+
+    double standardDeviation() {
+        return Math.sqrt(variance());
+    }
+
+    // Standard error of the mean
+    double standardError() {
+        return count < 2 ? Double.POSITIVE_INFINITY : Math.sqrt(sampleVariance() / count);
+    }
+
+    double min() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    double max() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    // Approximate quantile, q in [0, 1], clamped to the observed range
+    double quantile(double q) {
+        if (count == 0) return Double.NaN;
+        return Math.max(min, Math.min(max, sketch.quantile(q)));
+    }
+
+    // DDSketch-style histogram: bucket i holds values in (gamma^(i-1), gamma^i],
+    // which bounds the relative error of every reported quantile by the accuracy.
+    static final class QuantileSketch {
+        private final double gamma;
+        private final double logGamma;
+        private final Store positive = new Store();
+        private final Store negative = new Store();
+        private long zeros;
+
+        QuantileSketch(double relativeAccuracy) {
+            if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+                throw new IllegalArgumentException("Relative accuracy must be in (0, 1)");
+            }
+            this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+            this.logGamma = Math.log(gamma);
+        }
+
+        void add(double value) {
+            if (value > Double.MIN_NORMAL) {
+                positive.add(index(value), 1);
+            } else if (value < -Double.MIN_NORMAL) {
+                negative.add(index(-value), 1);
+            } else {
+                zeros++;
+            }
+        }
+
+        void merge(QuantileSketch other) {
+            if (other.gamma != gamma) throw new IllegalArgumentException("Sketches use different accuracies");
+            positive.merge(other.positive);
+            negative.merge(other.negative);
+            zeros += other.zeros;
+        }
+
+        double quantile(double q) {
+            long total = positive.total + negative.total + zeros;
+            if (total == 0) return Double.NaN;
+            long rank = (long) (Math.max(0, Math.min(1, q)) * (total - 1));
+
+            // Negative values come first, largest magnitude first
+            if (rank < negative.total) {
+                return -value(negative.indexAtRank(negative.total - 1 - rank));
+            }
+            rank -= negative.total;
+            if (rank < zeros) return 0;
+            rank -= zeros;
+            return value(positive.indexAtRank(rank));
+        }
+
+        private int index(double value) {
+            return (int) Math.ceil(Math.log(value) / logGamma);
+        }
+
+        private double value(int index) {
+            return 2 * Math.pow(gamma, index) / (gamma + 1);
+        }
+    }
+
+    // Dense counts over a contiguous, growable range of bucket indexes
+    private static final class Store {
+        private long[] counts = new long[0];
+        private int offset;
+        private long total;
+
+        void add(int index, long n) {
+            ensureCovers(index);
+            counts[index - offset] += n;
+            total += n;
+        }
+
+        void merge(Store other) {
+            if (other.total == 0) return;
+            ensureCovers(other.offset);
+            ensureCovers(other.offset + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[other.offset + i - offset] += other.counts[i];
+            }
+            total += other.total;
+        }
+
+        int indexAtRank(long rank) {
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen > rank) return offset + i;
+            }
+            return offset + counts.length - 1;
+        }
+
+        private void ensureCovers(int index) {
+            if (counts.length == 0) {
+                counts = new long[16];
+                offset = index - 8;
+                return;
+            }
+            if (index >= offset && index < offset + counts.length) return;
+
+            int low = Math.min(offset, index);
+            int high = Math.max(offset + counts.length - 1, index);
+            int length = Math.max(high - low + 1, counts.length * 2);
+            int newOffset = index < offset ? high - length + 1 : low;
+            long[] grown = new long[length];
+            System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+            counts = grown;
+            offset = newOffset;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package finance;
+
+// O(n) moving averages over primitive price arrays.
+// A single running window sum replaces the per-window inner loop of
+// FinanceAnalyzer.calculateMovingAverage; the sum is kept with Neumaier
+// compensation so that adding and removing millions of prices does not drift.
+// The per-window sums of the reference round every window on its own, which a running
+// sum cannot reproduce, so a short and a long average that are (nearly) equal can come
+// out in a different order. matchReferenceTies re-sums exactly those windows the
+// reference's way, which keeps the crossover signals identical to the reference's.
+final class MovingAverageEngine {
+    private MovingAverageEngine() {}
+
+    // The values of calculateMovingAverage up to rounding: element j is the mean of
+    // values[j .. j + period - 1].
+    static double[] simpleMovingAverage(double[] values, int period) {
+        return simpleMovingAverage(values, period, period - 1);
+    }
+
+    // Moving average for every window ending at index start, start + 1, ..., values.length - 1.
+    // Passing the long period's first index lets the short and long series come out
+    // already aligned for generateTradingSignals, without copying a tail of the short one.
+    static double[] simpleMovingAverage(double[] values, int period, int start) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive: " + period);
+        }
+        if (start < period - 1) {
+            throw new IllegalArgumentException("First window cannot end before index " + (period - 1));
+        }
+        if (start >= values.length) {
+            return new double[0];
+        }
+
+        double sum = 0;
+        double compensation = 0;
+        for (int i = start - period + 1; i <= start; i++) {
+            double t = sum + values[i];
+            compensation += Math.abs(sum) >= Math.abs(values[i]) ? (sum - t) + values[i] : (values[i] - t) + sum;
+            sum = t;
+        }
+
+        double[] ma = new double[values.length - start];
+        ma[0] = (sum + compensation) / period;
+        for (int i = start + 1, j = 1; i < values.length; i++, j++) {
+            // Slide the window: add the incoming price, then drop the outgoing one
+            double in = values[i];
+            double t = sum + in;
+            compensation += Math.abs(sum) >= Math.abs(in) ? (sum - t) + in : (in - t) + sum;
+            sum = t;
+
+            double out = -values[i - period];
+            t = sum + out;
+            compensation += Math.abs(sum) >= Math.abs(out) ? (sum - t) + out : (out - t) + sum;
+            sum = t;
+
+            ma[j] = (sum + compensation) / period;
+        }
+        return ma;
+    }
+
+    // Mean of values[end - period + 1 .. end] summed left to right, as
+    // FinanceAnalyzer.calculateMovingAverage sums each window
+    static double windowMean(double[] values, int end, int period) {
+        double sum = 0;
+        for (int j = end - period + 1; j <= end; j++) {
+            sum += values[j];
+        }
+        return sum / period;
+    }
+
+    // Whether running means this close may be ordered differently from the reference means.
+    // A compensated running mean is within a few ulps of the exact window mean; a per-window
+    // mean of non-negative values is within period ulps of it. The margin is four times the
+    // sum of both. With negative values the magnitudes bound nothing, so nothing is decided.
+    static boolean undecided(double shortMean, double longMean, int shortPeriod, int longPeriod,
+                             boolean nonNegative) {
+        if (!nonNegative) return true;
+        double scale = Math.max(Math.abs(shortMean), Math.abs(longMean));
+        return Math.abs(shortMean - longMean) <= 4.0 * (shortPeriod + longPeriod + 8) * Math.ulp(scale);
+    }
+
+    // Replaces every undecided pair of running means with the reference's per-window means,
+    // so a crossover rule over the arrays gives the reference's BUY, SELL and HOLD on every
+    // day, ties included. shortMA[j] and longMA[j] are the windows ending at start + j.
+    static void matchReferenceTies(double[] values, double[] shortMA, int shortPeriod, double[] longMA,
+                                   int longPeriod, int start) {
+        boolean nonNegative = true;
+        for (double value : values) {
+            if (!(value >= 0)) {
+                nonNegative = false;
+                break;
+            }
+        }
+        for (int j = 0; j < shortMA.length; j++) {
+            if (undecided(shortMA[j], longMA[j], shortPeriod, longPeriod, nonNegative)) {
+                shortMA[j] = windowMean(values, start + j, shortPeriod);
+                longMA[j] = windowMean(values, start + j, longPeriod);
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package finance;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+// The moving-average crossover over a directory of per-symbol price files
+// (<symbol>.csv, one price per line), each symbol's signals written to
+// <output dir>/<symbol><suffix>. Every symbol runs on its own virtual thread; reading
+// the file and writing the signals wait on an I/O permit (ioParallelism of them), and
+// parsing and the signal computation on one of availableProcessors() CPU permits, so
+// thousands of symbols keep the disk busy without oversubscribing the cores. A file's
+// I/O permit is only released once its CPU permit is held, so at most ioParallelism
+// files are in memory read but not yet parsed. Each file is parsed sequentially on its
+// own thread rather than by CsvLoader.loadPrices, whose parallel parse would run on the
+// common pool outside the CPU permits. A symbol that fails, with any exception, is
+// reported in the summary and does not stop the others.
+// P&L follows CrossoverSweep: one share, BUY opens a position when flat, SELL closes it,
+// an open position is valued at the last price.
+final class MultiSymbolBacktest {
+    static final int DEFAULT_IO_PARALLELISM = 32;
+
+    private MultiSymbolBacktest() {}
+
+    // error is null for a symbol that ran; the counts are then those of its signals
+    record Outcome(String symbol, int bars, int buys, int sells, int trades, double profit, String error) {
+        boolean failed() {
+            return error != null;
+        }
+    }
+
+    record Summary(List<Outcome> outcomes, double seconds) {
+        long bars() {
+            return outcomes.stream().mapToLong(Outcome::bars).sum();
+        }
+
+        long failed() {
+            return outcomes.stream().filter(Outcome::failed).count();
+        }
+    }
+
+    // Symbols in file-name order; suffix ".csv" or ".bin" picks the signal format
+    static Summary run(Path pricesDirectory, int shortPeriod, int longPeriod, Path outputDirectory, String suffix,
+                       int ioParallelism) throws IOException {
+        if (shortPeriod <= 0 || longPeriod <= 0) {
+            throw new IllegalArgumentException("Periods must be positive integers.");
+        }
+        if (shortPeriod >= longPeriod) {
+            throw new IllegalArgumentException("Short-term period must be less than long-term period.");
+        }
+        if (ioParallelism <= 0) throw new IllegalArgumentException("I/O parallelism must be positive: " + ioParallelism);
+        if (!Files.isDirectory(pricesDirectory)) {
+            throw new IllegalArgumentException("Not a directory: " + pricesDirectory);
+        }
+        if (pricesDirectory.toAbsolutePath().normalize().equals(outputDirectory.toAbsolutePath().normalize())) {
+            throw new IllegalArgumentException("Signals would overwrite the price files; pick another output directory.");
+        }
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(pricesDirectory)) {
+            files = listing.filter(file -> file.getFileName().toString().endsWith(".csv") && Files.isRegularFile(file))
+                    .sorted().toList();
+        }
+        if (files.isEmpty()) throw new IllegalArgumentException("No .csv price files in " + pricesDirectory);
+        Files.createDirectories(outputDirectory);
+
+        Semaphore io = new Semaphore(ioParallelism);
+        Semaphore cpu = new Semaphore(Runtime.getRuntime().availableProcessors());
+        long start = System.nanoTime();
+        List<Future<Outcome>> futures = new ArrayList<>(files.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path file : files) {
+                futures.add(executor.submit(() -> backtest(file, shortPeriod, longPeriod, outputDirectory, suffix, io, cpu)));
+            }
+            List<Outcome> outcomes = new ArrayList<>(files.size());
+            for (Future<Outcome> future : futures) outcomes.add(future.get());
+            return new Summary(outcomes, (System.nanoTime() - start) / 1e9);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while backtesting " + pricesDirectory, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static Outcome backtest(Path file, int shortPeriod, int longPeriod, Path outputDirectory, String suffix,
+                                    Semaphore io, Semaphore cpu) throws InterruptedException {
+        String name = file.getFileName().toString();
+        String symbol = name.substring(0, name.length() - ".csv".length());
+        try {
+            ByteBuffer bytes;
+            io.acquire();
+            try {
+                StageEvent stage = Metrics.start("backtest", "read");
+                if (Files.size(file) > Integer.MAX_VALUE - 8) throw new IOException("File too large: " + file);
+                bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+                Metrics.end(stage, 1, "files", bytes.limit());
+                cpu.acquire();
+            } finally {
+                io.release();
+            }
+
+            double[] prices;
+            Signal[] signals;
+            Outcome outcome;
+            try {
+                StageEvent stage = Metrics.start("backtest", "parse");
+                prices = CsvLoader.parsePrices(bytes);
+                Metrics.end(stage, prices.length, "rows", bytes.limit());
+                if (longPeriod > prices.length) {
+                    return failure(symbol, prices.length,
+                            "Long-term period exceeds number of data points (" + prices.length + ").");
+                }
+
+                stage = Metrics.start("backtest", "compute");
+                signals = FinanceAnalyzer.crossoverSignals(prices, shortPeriod, longPeriod);
+                outcome = trade(symbol, prices, signals, longPeriod);
+                Metrics.end(stage, signals.length, "signals");
+            } finally {
+                cpu.release();
+            }
+
+            io.acquire();
+            try {
+                Path signalsFile = outputDirectory.resolve(symbol + suffix);
+                StageEvent stage = Metrics.start("backtest", "write");
+                FinanceAnalyzer.writeSignals(signals, signalsFile);
+                Metrics.end(stage, signals.length, "signals", signalsFile);
+            } finally {
+                io.release();
+            }
+            return outcome;
+        } catch (IOException | RuntimeException e) {
+            return failure(symbol, 0, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    // Signal i is for the price at index first + i
+    private static Outcome trade(String symbol, double[] prices, Signal[] signals, int first) {
+        int buys = 0;
+        int sells = 0;
+        int trades = 0;
+        double profit = 0;
+        double entry = Double.NaN;
+        for (int i = 0; i < signals.length; i++) {
+            if (signals[i] == Signal.BUY) {
+                buys++;
+                if (Double.isNaN(entry)) entry = prices[first + i];
+            } else if (signals[i] == Signal.SELL) {
+                sells++;
+                if (!Double.isNaN(entry)) {
+                    profit += prices[first + i] - entry;
+                    trades++;
+                    entry = Double.NaN;
+                }
+            }
+        }
+        if (!Double.isNaN(entry)) profit += prices[prices.length - 1] - entry;
+        return new Outcome(symbol, prices.length, buys, sells, trades, profit, null);
+    }
+
+    private static Outcome failure(String symbol, int bars, String error) {
+        return new Outcome(symbol, bars, 0, 0, 0, 0, error == null ? "failed" : error);
+    }
+
+    static void printSummary(Summary summary, int top, PrintStream out) {
+        List<Outcome> ran = summary.outcomes().stream().filter(o -> !o.failed()).toList();
+        out.printf("%d symbols (%d failed), %,d bars in %.3f s (%.0f symbols/s, %.0f bars/s)%n",
+                summary.outcomes().size(), summary.failed(), summary.bars(), summary.seconds(),
+                summary.outcomes().size() / summary.seconds(), summary.bars() / summary.seconds());
+        out.printf("Signals: %d BUY, %d SELL; %d round trips, total P&L %.2f $/sh%n",
+                ran.stream().mapToLong(Outcome::buys).sum(), ran.stream().mapToLong(Outcome::sells).sum(),
+                ran.stream().mapToLong(Outcome::trades).sum(), ran.stream().mapToDouble(Outcome::profit).sum());
+        if (!ran.isEmpty()) {
+            out.printf("%-12s %10s %6s %6s %7s %12s%n", "Symbol", "Bars", "Buys", "Sells", "Trades", "P&L ($/sh)");
+            ran.stream().sorted(Comparator.comparingDouble(Outcome::profit).reversed()).limit(top)
+                    .forEach(o -> out.printf("%-12s %10d %6d %6d %7d %12.2f%n", o.symbol(), o.bars(), o.buys(),
+                            o.sells(), o.trades(), o.profit()));
+        }
+        summary.outcomes().stream().filter(Outcome::failed).limit(top)
+                .forEach(o -> out.println("Failed " + o.symbol() + ": " + o.error()));
+    }
+
+    // One row per symbol in file-name order; failed symbols keep their error
+    static void write(Summary summary, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("symbol,bars,buys,sells,trades,profit,error");
+            writer.newLine();
+            for (Outcome o : summary.outcomes()) {
+                writer.write(String.format("%s,%d,%d,%d,%d,%.2f,%s", o.symbol(), o.bars(), o.buys(), o.sells(),
+                        o.trades(), o.profit(), o.failed() ? o.error().replace(',', ';') : ""));
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package finance;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Long-lived expense clustering model for a ledger that only grows.
+// The model is the centroids from the last full fit plus, per centroid, how many
+// expenses it holds, and the byte offset of the ledger up to which expenses have
+// been seen. New rows are read from that offset, assigned to the nearest centroid
+// in O(k) and pulled into it with sequential k-means (MacQueen): the centroid moves
+// by (x - c) / count. Drift is how far a centroid has wandered from its fitted
+// position, relative to half the fitted gap to its nearest neighbour; past the
+// threshold, nearest-centroid assignments may no longer match a fit, so the whole
+// ledger is refitted, warm-started from the current centroids.
+final class OnlineExpenseClusterer {
+    static final double DEFAULT_DRIFT_THRESHOLD = 0.5;
+    private static final String OFFSET_HEADER = "# ledger offset: ";
+
+    private final double[] amounts;
+    private final double[] dates;
+    private final long[] counts;
+    private final double[] fittedAmounts;
+    private final double[] fittedDates;
+    private final double[] fittedHalfGap;
+    private long offset;
+
+    // rows holds the new ledger rows and clusters their assignments. When drift forced a
+    // refit, refit and ledger hold the full fit and the rows it clustered, otherwise null.
+    record Update(CsvLoader.ExpenseColumns rows, int[] clusters, double drift,
+                  KMeansEngine.Result refit, CsvLoader.ExpenseColumns ledger) {}
+
+    private OnlineExpenseClusterer(double[] amounts, double[] dates, long[] counts, long offset) {
+        int k = amounts.length;
+        if (k == 0) throw new IllegalArgumentException("Clustering model has no centroids");
+        this.amounts = amounts;
+        this.dates = dates;
+        this.counts = counts;
+        this.fittedAmounts = new double[k];
+        this.fittedDates = new double[k];
+        this.fittedHalfGap = new double[k];
+        this.offset = offset;
+        markFitted();
+    }
+
+    // Model of a full fit over the first ledgerBytes bytes of the ledger
+    static OnlineExpenseClusterer fromFit(KMeansEngine.Result fit, long ledgerBytes) {
+        int k = fit.centroidAmounts().length;
+        long[] counts = new long[k];
+        for (int cluster : fit.assignments()) counts[cluster]++;
+        return new OnlineExpenseClusterer(fit.centroidAmounts().clone(), fit.centroidDates().clone(), counts, ledgerBytes);
+    }
+
+    // Format: an offset header, then amount,date,count,fitted amount,fitted date per centroid
+    static OnlineExpenseClusterer load(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String header = reader.readLine();
+            if (header == null || !header.startsWith(OFFSET_HEADER)) {
+                throw new IllegalArgumentException("Not a clustering model: " + file);
+            }
+            long offset = Long.parseLong(header.substring(OFFSET_HEADER.length()).trim());
+            double[] amounts = new double[8];
+            double[] dates = new double[8];
+            long[] counts = new long[8];
+            double[][] fitted = new double[2][8];
+            int k = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                String[] parts = line.split(",");
+                if (parts.length != 5) throw new IllegalArgumentException("Malformed centroid line: " + line);
+                if (k == amounts.length) {
+                    amounts = Arrays.copyOf(amounts, k * 2);
+                    dates = Arrays.copyOf(dates, k * 2);
+                    counts = Arrays.copyOf(counts, k * 2);
+                    fitted[0] = Arrays.copyOf(fitted[0], k * 2);
+                    fitted[1] = Arrays.copyOf(fitted[1], k * 2);
+                }
+                amounts[k] = Double.parseDouble(parts[0]);
+                dates[k] = Double.parseDouble(parts[1]);
+                counts[k] = Long.parseLong(parts[2].trim());
+                fitted[0][k] = Double.parseDouble(parts[3]);
+                fitted[1][k] = Double.parseDouble(parts[4]);
+                k++;
+            }
+            OnlineExpenseClusterer model = new OnlineExpenseClusterer(Arrays.copyOf(amounts, k),
+                    Arrays.copyOf(dates, k), Arrays.copyOf(counts, k), offset);
+            System.arraycopy(fitted[0], 0, model.fittedAmounts, 0, k);
+            System.arraycopy(fitted[1], 0, model.fittedDates, 0, k);
+            model.updateHalfGaps();
+            return model;
+        }
+    }
+
+    // Full precision, so a reloaded model continues exactly where this one stopped
+    void save(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write(OFFSET_HEADER + offset);
+            writer.newLine();
+            for (int j = 0; j < amounts.length; j++) {
+                writer.write(amounts[j] + "," + dates[j] + "," + counts[j] + "," + fittedAmounts[j] + "," + fittedDates[j]);
+                writer.newLine();
+            }
+        }
+    }
+
+    int clusters() {
+        return amounts.length;
+    }
+
+    long offset() {
+        return offset;
+    }
+
+    // Assigns one expense and moves its centroid; O(k)
+    int add(double amount, double date) {
+        int best = 0;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int j = 0; j < amounts.length; j++) {
+            double distance = (amount - amounts[j]) * (amount - amounts[j]) + (date - dates[j]) * (date - dates[j]);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = j;
+            }
+        }
+        double rate = 1.0 / ++counts[best];
+        amounts[best] += (amount - amounts[best]) * rate;
+        dates[best] += (date - dates[best]) * rate;
+        return best;
+    }
+
+    // Largest centroid move since the last fit, in units of half the fitted gap to the nearest
+    // other centroid. With a single cluster there is nothing to drift towards.
+    double drift() {
+        double drift = 0;
+        for (int j = 0; j < amounts.length; j++) {
+            if (Double.isInfinite(fittedHalfGap[j])) continue;
+            double da = amounts[j] - fittedAmounts[j];
+            double dd = dates[j] - fittedDates[j];
+            double moved = Math.sqrt(da * da + dd * dd);
+            drift = Math.max(drift, fittedHalfGap[j] == 0 ? (moved > 0 ? Double.POSITIVE_INFINITY : 0) : moved / fittedHalfGap[j]);
+        }
+        return drift;
+    }
+
+    // Clusters the rows appended to the ledger since the last update, refitting the whole
+    // ledger when the drift passes the threshold
+    Update update(Path ledger, double driftThreshold, int maxIterations, double tolerance) throws IOException {
+        if (driftThreshold <= 0) throw new IllegalArgumentException("Drift threshold must be positive");
+        long size = Files.size(ledger);
+        if (size < offset) throw new IllegalArgumentException("Ledger is shorter than when it was clustered: " + ledger);
+
+        CsvLoader.ExpenseColumns rows = CsvLoader.loadExpenses(ledger, offset, size);
+        int[] clusters = new int[rows.size()];
+        for (int i = 0; i < clusters.length; i++) {
+            clusters[i] = add(rows.amounts()[i], rows.dates()[i]);
+        }
+        offset = size;
+
+        double drift = drift();
+        if (drift <= driftThreshold) return new Update(rows, clusters, drift, null, null);
+
+        CsvLoader.ExpenseColumns all = DatasetCache.expenses(ledger);
+        KMeansEngine engine = new KMeansEngine(all.amounts(), all.dates(), amounts.length);
+        KMeansEngine.Result fit = engine.fit(amounts, dates, maxIterations, tolerance, KMeansEngine.Assignment.HAMERLY);
+        System.arraycopy(fit.centroidAmounts(), 0, amounts, 0, amounts.length);
+        System.arraycopy(fit.centroidDates(), 0, dates, 0, dates.length);
+        Arrays.fill(counts, 0);
+        for (int cluster : fit.assignments()) counts[cluster]++;
+        markFitted();
+        return new Update(rows, clusters, drift, fit, all);
+    }
+
+    private void markFitted() {
+        System.arraycopy(amounts, 0, fittedAmounts, 0, amounts.length);
+        System.arraycopy(dates, 0, fittedDates, 0, dates.length);
+        updateHalfGaps();
+    }
+
+    private void updateHalfGaps() {
+        Arrays.fill(fittedHalfGap, Double.POSITIVE_INFINITY);
+        for (int j = 0; j < amounts.length; j++) {
+            for (int m = j + 1; m < amounts.length; m++) {
+                double da = fittedAmounts[j] - fittedAmounts[m];
+                double dd = fittedDates[j] - fittedDates[m];
+                double half = 0.5 * Math.sqrt(da * da + dd * dd);
+                fittedHalfGap[j] = Math.min(fittedHalfGap[j], half);
+                fittedHalfGap[m] = Math.min(fittedHalfGap[m], half);
+            }
+        }
+    }
+}
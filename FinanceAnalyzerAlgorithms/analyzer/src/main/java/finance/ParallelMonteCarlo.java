@@ -0,0 +1,129 @@
+package finance;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Multi-core Monte Carlo savings simulation built on FinanceAnalyzer.monteCarloSimulation.
+// Paths are grouped into fixed-size blocks and every block gets its own
+// SplittableRandom, split in block order from the user's seed. Which worker runs
+// a block never changes the numbers it draws, so a given seed produces the same
+// results for any thread count.
+final class ParallelMonteCarlo {
+    static final int BLOCK_PATHS = 1 << 16;
+    private static final int BLOCKS_PER_TASK = 4;
+
+    private ParallelMonteCarlo() {}
+
+    static MonteCarloStats run(double initial, int years, long paths, long seed, PathKernel kernel, double[] balances) {
+        return run(initial, years, paths, seed, Runtime.getRuntime().availableProcessors(), kernel, balances);
+    }
+
+    // Streams every path into per-block accumulators that are merged in a fixed tree order,
+    // so memory stays constant. Final balances are only kept when a balances array is passed.
+    static MonteCarloStats run(double initial, int years, long paths, long seed, int threads,
+                               PathKernel kernel, double[] balances) {
+        if (paths < 0) throw new IllegalArgumentException("Number of simulations must not be negative");
+        if (threads <= 0) throw new IllegalArgumentException("Thread count must be positive");
+        if (balances != null && balances.length < paths) {
+            throw new IllegalArgumentException("Balances array is shorter than the number of simulations");
+        }
+
+        SplittableRandom[] streams = blockStreams(seed, blockCount(paths));
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new BlockRange(0, streams.length, (block, rng) -> {
+                long from = (long) block * BLOCK_PATHS;
+                int count = (int) Math.min(BLOCK_PATHS, paths - from);
+                double[] out = balances != null ? balances : new double[count];
+                int offset = balances != null ? (int) from : 0;
+                kernel.simulate(initial, years, rng, out, offset, count);
+
+                MonteCarloStats stats = new MonteCarloStats();
+                for (int i = offset; i < offset + count; i++) {
+                    stats.add(out[i]);
+                }
+                return stats;
+            }, streams));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Usage: ParallelMonteCarlo [paths] [years]
+    // Reports paths per second of every kernel, single-threaded and on all cores.
+    public static void main(String[] args) {
+        long paths = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        int years = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int cores = Runtime.getRuntime().availableProcessors();
+        PathKernel vector = PathKernel.vector();
+        PathKernel[] kernels = vector == null
+                ? new PathKernel[] {PathKernel.PER_PATH, new ScalarPathKernel()}
+                : new PathKernel[] {PathKernel.PER_PATH, new ScalarPathKernel(), vector};
+
+        for (int threads : cores > 1 ? new int[] {1, cores} : new int[] {1}) {
+            double baseline = 0;
+            for (PathKernel kernel : kernels) {
+                run(100, years, Math.min(paths, 1_000_000L), 1, threads, kernel, null); // warm-up
+                long start = System.nanoTime();
+                MonteCarloStats stats = run(100, years, paths, 42, threads, kernel, null);
+                double rate = paths / ((System.nanoTime() - start) / 1e9);
+                if (baseline == 0) baseline = rate;
+                System.out.printf("%-24s threads=%-3d %,14.0f paths/s  x%.2f  (mean $%.2f)%n",
+                        kernel.name(), threads, rate, rate / baseline, stats.mean());
+            }
+        }
+    }
+
+    static int blockCount(long paths) {
+        return (int) ((paths + BLOCK_PATHS - 1) / BLOCK_PATHS);
+    }
+
+    // One generator per block, split sequentially so the assignment depends only on the seed
+    static SplittableRandom[] blockStreams(long seed, int blocks) {
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[blocks];
+        for (int b = 0; b < blocks; b++) {
+            streams[b] = root.split();
+        }
+        return streams;
+    }
+
+    interface BlockKernel {
+        MonteCarloStats run(int block, SplittableRandom rng);
+    }
+
+    // Fork-join split over a range of blocks. The split points depend only on the range,
+    // so accumulators are always merged in the same order whatever the thread count.
+    static final class BlockRange extends RecursiveTask<MonteCarloStats> {
+        private final int from;
+        private final int to;
+        private final BlockKernel kernel;
+        private final SplittableRandom[] streams;
+
+        BlockRange(int from, int to, BlockKernel kernel, SplittableRandom[] streams) {
+            this.from = from;
+            this.to = to;
+            this.kernel = kernel;
+            this.streams = streams;
+        }
+
+        @Override
+        protected MonteCarloStats compute() {
+            if (to - from <= BLOCKS_PER_TASK) {
+                MonteCarloStats stats = new MonteCarloStats();
+                for (int b = from; b < to; b++) {
+                    stats.merge(kernel.run(b, streams[b]));
+                }
+                return stats;
+            }
+            int mid = (from + to) >>> 1;
+            BlockRange left = new BlockRange(from, mid, kernel, streams);
+            BlockRange right = new BlockRange(mid, to, kernel, streams);
+            right.fork();
+            MonteCarloStats stats = left.compute();
+            stats.merge(right.join());
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package finance;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Compact binary alternative to the CSV outputs, chosen by a .bin file name.
+// Both formats start with a 16-byte little-endian header: a 4-byte magic, an int
+// version and a long count.
+//   Monte Carlo balances ("FAMC"): count doubles, little-endian, right after the header,
+//   so a reader can map the file and view it as a DoubleBuffer.
+//   Trading signals ("FASG"): a long first day number, then the signals run-length
+//   encoded as a byte (Signal ordinal) followed by the run length as an unsigned
+//   LEB128 varint. Crossover signals are mostly long HOLD runs, so this is usually a
+//   few bytes per trade instead of a "Day N: HOLD" line per day.
+// Converting back gives exactly the CSV the text writers produce.
+final class ResultFiles {
+    static final String BINARY_SUFFIX = ".bin";
+
+    private static final int BALANCES_MAGIC = 0x434D4146; // "FAMC"
+    private static final int SIGNALS_MAGIC = 0x47534146;  // "FASG"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final Signal[] SIGNALS = Signal.values();
+
+    private ResultFiles() {}
+
+    // Signal of day firstDay + i at index i
+    record Signals(long firstDay, Signal[] days) {}
+
+    static boolean isBinary(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(BINARY_SUFFIX);
+    }
+
+    static void writeBalances(double[] balances, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(BALANCES_MAGIC).putInt(VERSION).putLong(balances.length);
+            for (int i = 0; i < balances.length; ) {
+                int n = Math.min(balances.length - i, buffer.remaining() / Double.BYTES);
+                buffer.asDoubleBuffer().put(balances, i, n);
+                buffer.position(buffer.position() + n * Double.BYTES);
+                i += n;
+                drain(channel, buffer);
+            }
+            drain(channel, buffer);
+        }
+    }
+
+    static double[] readBalances(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long count = readHeader(channel, file, BALANCES_MAGIC);
+            if (count > Integer.MAX_VALUE - 8 || HEADER_BYTES + count * Double.BYTES != channel.size()) {
+                throw new IOException("Balance count does not match the file size: " + file);
+            }
+            double[] balances = new double[(int) count];
+            // Mapped in pieces, since a single mapping is limited to 2 GB
+            int perMap = Integer.MAX_VALUE / Double.BYTES;
+            for (int i = 0; i < balances.length; i += perMap) {
+                int n = Math.min(perMap, balances.length - i);
+                channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + (long) i * Double.BYTES, (long) n * Double.BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(balances, i, n);
+            }
+            return balances;
+        }
+    }
+
+    static void writeSignals(Signal[] days, long firstDay, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(SIGNALS_MAGIC).putInt(VERSION).putLong(days.length).putLong(firstDay);
+            for (int i = 0; i < days.length; ) {
+                int end = i + 1;
+                while (end < days.length && days[end] == days[i]) end++;
+                if (buffer.remaining() < 11) drain(channel, buffer);
+                buffer.put((byte) days[i].ordinal());
+                for (long run = end - i; ; run >>>= 7) {
+                    if (run < 0x80) {
+                        buffer.put((byte) run);
+                        break;
+                    }
+                    buffer.put((byte) (run & 0x7F | 0x80));
+                }
+                i = end;
+            }
+            drain(channel, buffer);
+        }
+    }
+
+    static Signals readSignals(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long count = readHeader(channel, file, SIGNALS_MAGIC);
+            if (count > Integer.MAX_VALUE - 8) throw new IOException("Too many signals for an in-memory array: " + file);
+            if (channel.size() < HEADER_BYTES + Long.BYTES) throw new IOException("Truncated signal file: " + file);
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, channel.size() - HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            long firstDay = buffer.getLong();
+            Signal[] days = new Signal[(int) count];
+            int filled = 0;
+            while (buffer.hasRemaining()) {
+                int ordinal = buffer.get();
+                if (ordinal < 0 || ordinal >= SIGNALS.length) throw new IOException("Unknown signal code " + ordinal + ": " + file);
+                long run = 0;
+                for (int shift = 0; ; shift += 7) {
+                    if (shift > 56 || !buffer.hasRemaining()) throw new IOException("Truncated run length: " + file);
+                    byte b = buffer.get();
+                    run |= (long) (b & 0x7F) << shift;
+                    if (b >= 0) break;
+                }
+                if (run > count - filled) throw new IOException("Runs add up to more than " + count + " signals: " + file);
+                Arrays.fill(days, filled, filled + (int) run, SIGNALS[ordinal]);
+                filled += (int) run;
+            }
+            if (filled != count) throw new IOException("Runs add up to " + filled + " of " + count + " signals: " + file);
+            return new Signals(firstDay, days);
+        }
+    }
+
+    // Same text as FinanceAnalyzer.saveSimulationResults / saveSignalsToFile
+    static void toCsv(Path binary, Path csv) throws IOException {
+        int magic;
+        try (FileChannel channel = FileChannel.open(binary, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.read(header, 0) < 4) throw new IOException("Not a result file: " + binary);
+            magic = header.getInt(0);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(csv)) {
+            if (magic == BALANCES_MAGIC) {
+                for (double balance : readBalances(binary)) {
+                    writer.write(String.format("%.2f", balance));
+                    writer.newLine();
+                }
+            } else if (magic == SIGNALS_MAGIC) {
+                Signals signals = readSignals(binary);
+                for (int i = 0; i < signals.days().length; i++) {
+                    writer.write("Day " + (signals.firstDay() + i) + ": " + signals.days()[i]);
+                    writer.newLine();
+                }
+            } else {
+                throw new IOException("Not a result file: " + binary);
+            }
+        }
+    }
+
+    private static long readHeader(FileChannel channel, Path file, int magic) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining() && channel.read(header) > 0) {}
+        if (header.hasRemaining() || header.getInt(0) != magic) {
+            throw new IOException("Not a " + (magic == BALANCES_MAGIC ? "balance" : "signal") + " file: " + file);
+        }
+        if (header.getInt(4) != VERSION) throw new IOException("Unsupported format version " + header.getInt(4) + ": " + file);
+        long count = header.getLong(8);
+        if (count < 0) throw new IOException("Negative count in " + file);
+        return count;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    // Usage: ResultFiles <result.bin> [result.csv]; the CSV defaults to the same name with .csv
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ResultFiles <result.bin> [result.csv]");
+            System.exit(2);
+        }
+        Path binary = Paths.get(args[0]);
+        Path csv = args.length > 1 ? Paths.get(args[1]) : csvName(binary);
+        toCsv(binary, csv);
+        System.out.println("Converted " + binary + " to " + csv);
+    }
+
+    static Path csvName(Path binary) {
+        String name = binary.getFileName().toString();
+        String base = isBinary(binary) ? name.substring(0, name.length() - BINARY_SUFFIX.length()) : name;
+        return binary.resolveSibling(base + ".csv");
+    }
+}
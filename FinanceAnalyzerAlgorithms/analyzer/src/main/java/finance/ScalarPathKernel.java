@@ -0,0 +1,60 @@
+package finance;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Structure-of-arrays batch kernel: a batch of balances advances one year at a time.
+// Each year takes one nextLong from the block's generator as the base of a
+// counter-mode SplitMix64 stream (draw k = mix64(base + k * golden gamma), the
+// same mixer SplittableRandom uses), so every uniform can be computed
+// independently, then turns pairs of uniforms into normals with Box-Muller.
+// VectorPathKernel runs the same arithmetic in SIMD lanes; this class is its
+// scalar reference.
+class ScalarPathKernel implements PathKernel {
+    static final int BATCH = 2048;
+    static final double MEAN_RETURN = 0.07;
+    static final double RETURN_SD = 0.05;
+    static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    public void simulate(double initial, int years, SplittableRandom rng, double[] out, int offset, int count) {
+        double[] shocks = new double[BATCH];
+        for (int start = offset, end = offset + count; start < end; start += BATCH) {
+            int n = Math.min(BATCH, end - start);
+            int pairs = (n + 1) / 2;
+            Arrays.fill(out, start, start + n, initial);
+            for (int year = 0; year < years; year++) {
+                gaussians(rng.nextLong(), shocks, pairs);
+                compound(out, start, shocks, n);
+            }
+        }
+    }
+
+    public String name() {
+        return "scalar-batch";
+    }
+
+    // Pair i uses draws 2i and 2i + 1; cosine normals fill shocks[0 .. pairs), sine normals shocks[pairs .. 2 * pairs)
+    void gaussians(long base, double[] shocks, int pairs) {
+        for (int i = 0; i < pairs; i++) {
+            double u1 = 1.0 - (mix64(base + (2L * i) * GOLDEN_GAMMA) >>> 11) * DOUBLE_UNIT; // (0, 1], keeps log finite
+            double u2 = (mix64(base + (2L * i + 1) * GOLDEN_GAMMA) >>> 11) * DOUBLE_UNIT;
+            double r = Math.sqrt(-2.0 * Math.log(u1));
+            double theta = 2.0 * Math.PI * u2;
+            shocks[i] = r * Math.cos(theta);
+            shocks[pairs + i] = r * Math.sin(theta);
+        }
+    }
+
+    void compound(double[] balances, int offset, double[] shocks, int n) {
+        for (int i = 0; i < n; i++) {
+            balances[offset + i] *= 1 + (shocks[i] * RETURN_SD + MEAN_RETURN);
+        }
+    }
+
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,13 @@
+package finance;
+
+// Trading signal emitted by the moving-average crossover rules
+enum Signal {
+    BUY, SELL, HOLD;
+
+    // Shared crossover rule: previous and current short/long average pairs
+    static Signal crossover(double prevShort, double prevLong, double currShort, double currLong) {
+        if (prevShort < prevLong && currShort > currLong) return BUY;
+        if (prevShort > prevLong && currShort < currLong) return SELL;
+        return HOLD;
+    }
+}
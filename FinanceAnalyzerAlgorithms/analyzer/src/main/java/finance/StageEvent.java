@@ -0,0 +1,38 @@
+package finance;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// One stage (parse, compute, write, ...) of an analysis, recorded when a flight
+// recording is running, e.g. java -XX:StartFlightRecording=filename=run.jfr ...
+// Started and finished through Metrics, which also feeds the in-process counters.
+@Name("finance.Stage")
+@Label("Analysis Stage")
+@Category("Finance Analyzer")
+@Description("Time spent in one stage of an analysis")
+@StackTrace(false)
+final class StageEvent extends jdk.jfr.Event {
+    @Label("Analysis")
+    String analysis;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Count")
+    @Description("Rows parsed, paths simulated, iterations run, ... depending on the stage")
+    long count;
+
+    @Label("Unit")
+    String unit;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    // System.nanoTime() at the start when counters are enabled; not part of the event
+    transient long startNanos;
+}
@@ -0,0 +1,145 @@
+package finance;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+// Tick-by-tick moving average crossover for unbounded price feeds.
+// Keeps one ring buffer per window, so memory is O(longPeriod) and every tick
+// costs O(1), except on ticks where the two averages are too close to order (every
+// tick once a negative price has been seen): those are re-summed from the buffers like
+// the batch crossover's, so the signals and their day numbering are exactly those of
+// the batch crossover in FinanceAnalyzer.
+final class StreamingCrossover {
+    private final RollingWindow shortWindow;
+    private final RollingWindow longWindow;
+    private final int shortPeriod;
+    private final int longPeriod;
+    private boolean nonNegative = true;
+    private long ticks;
+    private double prevShort;
+    private double prevLong;
+
+    StreamingCrossover(int shortPeriod, int longPeriod) {
+        if (shortPeriod <= 0 || longPeriod <= 0) {
+            throw new IllegalArgumentException("Periods must be positive integers");
+        }
+        if (shortPeriod >= longPeriod) {
+            throw new IllegalArgumentException("Short-term period must be less than long-term period");
+        }
+        this.shortWindow = new RollingWindow(shortPeriod);
+        this.longWindow = new RollingWindow(longPeriod);
+        this.shortPeriod = shortPeriod;
+        this.longPeriod = longPeriod;
+    }
+
+    // Feeds one price; returns null while the long window is still warming up
+    Signal onPrice(double price) {
+        shortWindow.add(price);
+        longWindow.add(price);
+        ticks++;
+        nonNegative &= price >= 0;
+        if (ticks < longPeriod) return null;
+
+        double currShort = shortWindow.mean();
+        double currLong = longWindow.mean();
+        if (MovingAverageEngine.undecided(currShort, currLong, shortPeriod, longPeriod, nonNegative)) {
+            currShort = shortWindow.windowMean();
+            currLong = longWindow.windowMean();
+        }
+        Signal signal = ticks == longPeriod ? null : Signal.crossover(prevShort, prevLong, currShort, currLong);
+        prevShort = currShort;
+        prevLong = currLong;
+        return signal;
+    }
+
+    // Day label of the signal returned by the latest onPrice call (matches "Day N" in trading_signals.csv)
+    long day() {
+        return ticks - longPeriod + 1;
+    }
+
+    // Streams prices, one per line, and writes a "Day N: SIGNAL" line per tick once warmed up.
+    // Output is flushed whenever the input has nothing buffered, so live feeds see signals immediately.
+    long run(BufferedReader reader, Writer writer) throws IOException {
+        long emitted = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            Signal signal = onPrice(Double.parseDouble(line));
+            if (signal != null) {
+                writer.write("Day " + day() + ": " + signal);
+                writer.write(System.lineSeparator());
+                emitted++;
+            }
+            if (!reader.ready()) writer.flush();
+        }
+        writer.flush();
+        return emitted;
+    }
+
+    // Usage: StreamingCrossover <shortPeriod> <longPeriod> [prices file | -] [output file]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: StreamingCrossover <shortPeriod> <longPeriod> [prices file | -] [output file]");
+            System.exit(2);
+        }
+        StreamingCrossover crossover = new StreamingCrossover(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+        String input = args.length > 2 ? args[2] : "-";
+
+        try (BufferedReader reader = input.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(input));
+             Writer writer = args.length > 3
+                     ? Files.newBufferedWriter(Paths.get(args[3]))
+                     : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            crossover.run(reader, writer);
+        }
+    }
+
+    // Fixed-size ring buffer with a compensated running sum
+    static final class RollingWindow {
+        private final double[] buffer;
+        private int next;
+        private int size;
+        private double sum;
+        private double compensation;
+
+        RollingWindow(int capacity) {
+            this.buffer = new double[capacity];
+        }
+
+        // Same order as MovingAverageEngine: add the incoming value, then drop the outgoing one
+        void add(double value) {
+            accumulate(value);
+            if (size == buffer.length) {
+                accumulate(-buffer[next]);
+            } else {
+                size++;
+            }
+            buffer[next] = value;
+            next = next + 1 == buffer.length ? 0 : next + 1;
+        }
+
+        private void accumulate(double x) {
+            double t = sum + x;
+            compensation += Math.abs(sum) >= Math.abs(x) ? (sum - t) + x : (x - t) + sum;
+            sum = t;
+        }
+
+        double mean() {
+            return (sum + compensation) / size;
+        }
+
+        // Summed oldest to newest, as MovingAverageEngine.windowMean sums a window
+        double windowMean() {
+            double total = 0;
+            int oldest = size == buffer.length ? next : 0;
+            for (int k = 0; k < size; k++) {
+                int i = oldest + k;
+                total += buffer[i < buffer.length ? i : i - buffer.length];
+            }
+            return total / size;
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package finance;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+// Variance-reduction estimators of the mean final balance for the 7%/5% savings model.
+// Every mode reports the standard error it actually achieved, so modes can be
+// compared at equal path counts:
+//   PLAIN           independent pseudo-random paths
+//   ANTITHETIC      each shock vector z is also run as -z and the pair averaged
+//   SOBOL           randomized quasi-Monte Carlo: Sobol points with Brownian-bridge ordering,
+//                   REPLICATES independent digital shifts, error from the spread of the replicates
+//   CONTROL_VARIATE regression on a geometric (lognormal) twin of each path whose mean is the
+//                   analytic expected growth initial * 1.07^years
+// Paths are split into ParallelMonteCarlo blocks with per-block generators, so a
+// seed gives the same estimate for any thread count.
+final class VarianceReduction {
+    static final int REPLICATES = 16;
+
+    private VarianceReduction() {}
+
+    enum Mode {
+        PLAIN, ANTITHETIC, SOBOL, CONTROL_VARIATE;
+
+        static Mode parse(String text) {
+            return switch (text.trim().toLowerCase(Locale.ROOT)) {
+                case "plain", "none", "" -> PLAIN;
+                case "antithetic" -> ANTITHETIC;
+                case "sobol", "qmc" -> SOBOL;
+                case "control", "control_variate", "cv" -> CONTROL_VARIATE;
+                default -> throw new IllegalArgumentException("Unknown variance-reduction mode: " + text);
+            };
+        }
+    }
+
+    record Estimate(Mode mode, double mean, double standardError, long paths, double seconds) {
+        double halfWidth(double z) {
+            return z * standardError;
+        }
+    }
+
+    static double analyticMean(double initial, int years) {
+        return initial * Math.pow(1 + ScalarPathKernel.MEAN_RETURN, years);
+    }
+
+    static Estimate estimate(Mode mode, double initial, int years, long paths, long seed) {
+        if (paths < 2) throw new IllegalArgumentException("At least two paths are needed for a standard error");
+        long start = System.nanoTime();
+        Estimate estimate = switch (mode) {
+            case PLAIN -> pseudoRandom(mode, initial, years, paths, seed);
+            case ANTITHETIC -> pseudoRandom(mode, initial, years, paths / 2 * 2, seed);
+            case CONTROL_VARIATE -> pseudoRandom(mode, initial, years, paths, seed);
+            case SOBOL -> sobol(initial, years, paths / REPLICATES * REPLICATES, seed);
+        };
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return new Estimate(mode, estimate.mean(), estimate.standardError(), estimate.paths(), seconds);
+    }
+
+    // PLAIN, ANTITHETIC and CONTROL_VARIATE all reduce per-block co-moments of (observation, control)
+    private static Estimate pseudoRandom(Mode mode, double initial, int years, long paths, long seed) {
+        // An antithetic observation is a pair of paths
+        long observations = mode == Mode.ANTITHETIC ? paths / 2 : paths;
+        int blocks = ParallelMonteCarlo.blockCount(observations);
+        SplittableRandom[] streams = ParallelMonteCarlo.blockStreams(seed, blocks);
+        double controlMean = analyticMean(initial, years);
+
+        Moments[] partial = IntStream.range(0, blocks).parallel().mapToObj(b -> {
+            SplittableRandom rng = streams[b];
+            long count = Math.min(ParallelMonteCarlo.BLOCK_PATHS, observations - (long) b * ParallelMonteCarlo.BLOCK_PATHS);
+            double[] shocks = new double[years];
+            Moments moments = new Moments();
+            for (long i = 0; i < count; i++) {
+                for (int t = 0; t < years; t++) {
+                    shocks[t] = rng.nextGaussian();
+                }
+                double balance = finalBalance(initial, shocks, 1);
+                switch (mode) {
+                    case ANTITHETIC -> moments.add(0.5 * (balance + finalBalance(initial, shocks, -1)), 0);
+                    case CONTROL_VARIATE -> moments.add(balance, geometricTwin(initial, shocks) - controlMean);
+                    default -> moments.add(balance, 0);
+                }
+            }
+            return moments;
+        }).toArray(Moments[]::new);
+
+        Moments total = new Moments();
+        for (Moments moments : partial) {
+            total.merge(moments);
+        }
+
+        if (mode != Mode.CONTROL_VARIATE) {
+            return new Estimate(mode, total.meanY, Math.sqrt(total.varianceY() / total.count), paths, 0);
+        }
+        // Known control mean is zero after centring: estimate = mean(Y) - beta * mean(C)
+        double beta = total.varianceC() == 0 ? 0 : total.covariance() / total.varianceC();
+        double mean = total.meanY - beta * total.meanC;
+        double residual = Math.max(0, total.varianceY() - beta * total.covariance());
+        return new Estimate(mode, mean, Math.sqrt(residual / total.count), paths, 0);
+    }
+
+    private static Estimate sobol(double initial, int years, long paths, long seed) {
+        long perReplicate = paths / REPLICATES;
+        if (perReplicate < 1) throw new IllegalArgumentException("Sobol mode needs at least " + REPLICATES + " paths");
+        if (perReplicate > (1L << Sobol.BITS)) throw new IllegalArgumentException("Too many paths for 32-bit Sobol points");
+
+        BrownianBridge bridge = new BrownianBridge(years);
+        int sobolDims = Math.min(years, Sobol.MAX_DIMENSIONS);
+        int blocksPerReplicate = ParallelMonteCarlo.blockCount(perReplicate);
+        SplittableRandom root = new SplittableRandom(seed);
+        int[][] shifts = new int[REPLICATES][sobolDims];
+        for (int[] shift : shifts) {
+            for (int d = 0; d < sobolDims; d++) shift[d] = root.nextInt();
+        }
+        SplittableRandom[] streams = ParallelMonteCarlo.blockStreams(root.nextLong(), REPLICATES * blocksPerReplicate);
+
+        Moments[] partial = IntStream.range(0, REPLICATES * blocksPerReplicate).parallel().mapToObj(task -> {
+            int replicate = task / blocksPerReplicate;
+            long from = (long) (task % blocksPerReplicate) * ParallelMonteCarlo.BLOCK_PATHS;
+            long to = Math.min(perReplicate, from + ParallelMonteCarlo.BLOCK_PATHS);
+            Sobol sequence = new Sobol(sobolDims, from);
+            SplittableRandom rng = streams[task];
+            double[] normals = new double[years];
+            double[] shocks = new double[years];
+            Moments moments = new Moments();
+            for (long i = from; i < to; i++) {
+                for (int d = 0; d < years; d++) {
+                    // Dimensions past the Sobol table are the finest bridge levels; fill them pseudo-randomly
+                    normals[d] = d < sobolDims
+                            ? inverseNormal((Integer.toUnsignedLong(sequence.coordinate(d) ^ shifts[replicate][d]) + 0.5) * 0x1.0p-32)
+                            : rng.nextGaussian();
+                }
+                // Not past the last point: point 2^32 - 1 has no successor in the 32-bit table
+                if (i + 1 < to) sequence.advance();
+                bridge.increments(normals, shocks);
+                moments.add(finalBalance(initial, shocks, 1), 0);
+            }
+            return moments;
+        }).toArray(Moments[]::new);
+
+        // Each replicate mean is one unbiased observation; their spread gives the standard error
+        Moments replicates = new Moments();
+        for (int r = 0; r < REPLICATES; r++) {
+            Moments replicate = new Moments();
+            for (int b = 0; b < blocksPerReplicate; b++) {
+                replicate.merge(partial[r * blocksPerReplicate + b]);
+            }
+            replicates.add(replicate.meanY, 0);
+        }
+        return new Estimate(Mode.SOBOL, replicates.meanY,
+                Math.sqrt(replicates.varianceY() / REPLICATES), paths, 0);
+    }
+
+    private static double finalBalance(double initial, double[] shocks, double sign) {
+        double balance = initial;
+        for (double z : shocks) {
+            balance *= 1 + (sign * z * ScalarPathKernel.RETURN_SD + ScalarPathKernel.MEAN_RETURN);
+        }
+        return balance;
+    }
+
+    // Lognormal path driven by the same shocks, with E = initial * (1 + mean)^years exactly
+    private static double geometricTwin(double initial, double[] shocks) {
+        double sigma = ScalarPathKernel.RETURN_SD / (1 + ScalarPathKernel.MEAN_RETURN);
+        double drift = Math.log1p(ScalarPathKernel.MEAN_RETURN) - 0.5 * sigma * sigma;
+        double sum = 0;
+        for (double z : shocks) sum += z;
+        return initial * Math.exp(drift * shocks.length + sigma * sum);
+    }
+
+    // Acklam's rational approximation of the standard normal quantile (relative error below 1.2e-9)
+    static double inverseNormal(double p) {
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        if (p <= 0 || p >= 1) throw new IllegalArgumentException("Probability must be in (0, 1): " + p);
+
+        if (p < 0.02425) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - 0.02425) {
+            double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+
+    // Mergeable co-moments of an observation Y and a centred control C
+    static final class Moments {
+        long count;
+        double meanY;
+        double meanC;
+        double m2Y;
+        double m2C;
+        double cYC;
+
+        void add(double y, double c) {
+            count++;
+            double dy = y - meanY;
+            double dc = c - meanC;
+            meanY += dy / count;
+            meanC += dc / count;
+            m2Y += dy * (y - meanY);
+            m2C += dc * (c - meanC);
+            cYC += dy * (c - meanC);
+        }
+
+        void merge(Moments other) {
+            if (other.count == 0) return;
+            if (count == 0) {
+                count = other.count;
+                meanY = other.meanY;
+                meanC = other.meanC;
+                m2Y = other.m2Y;
+                m2C = other.m2C;
+                cYC = other.cYC;
+                return;
+            }
+            long total = count + other.count;
+            double weight = (double) count * other.count / total;
+            double dy = other.meanY - meanY;
+            double dc = other.meanC - meanC;
+            meanY += dy * other.count / total;
+            meanC += dc * other.count / total;
+            m2Y += other.m2Y + dy * dy * weight;
+            m2C += other.m2C + dc * dc * weight;
+            cYC += other.cYC + dy * dc * weight;
+            count = total;
+        }
+
+        double varianceY() {
+            return count < 2 ? 0 : m2Y / (count - 1);
+        }
+
+        double varianceC() {
+            return count < 2 ? 0 : m2C / (count - 1);
+        }
+
+        double covariance() {
+            return count < 2 ? 0 : cYC / (count - 1);
+        }
+    }
+
+    // Gray-code Sobol sequence with Joe-Kuo direction numbers (new-joe-kuo-6.21201, first 21 dimensions)
+    static final class Sobol {
+        static final int BITS = 32;
+        // {degree s, coefficients a, m_1 .. m_s} for dimensions 2..21; dimension 1 is van der Corput
+        private static final int[][] DIRECTIONS = {
+                {1, 0, 1}, {2, 1, 1, 3}, {3, 1, 1, 3, 1}, {3, 2, 1, 1, 1}, {4, 1, 1, 1, 3, 3},
+                {4, 4, 1, 3, 5, 13}, {5, 2, 1, 1, 5, 5, 17}, {5, 4, 1, 1, 5, 5, 5}, {5, 7, 1, 1, 7, 11, 19},
+                {5, 11, 1, 1, 5, 1, 1}, {5, 13, 1, 1, 1, 3, 11}, {5, 14, 1, 3, 5, 5, 31},
+                {6, 1, 1, 3, 3, 9, 7, 49}, {6, 13, 1, 1, 1, 15, 21, 21}, {6, 16, 1, 3, 1, 13, 27, 49},
+                {6, 19, 1, 1, 1, 15, 7, 5}, {6, 22, 1, 3, 1, 15, 13, 25}, {6, 25, 1, 1, 5, 5, 19, 61},
+                {7, 1, 1, 3, 7, 11, 23, 15, 103}, {7, 4, 1, 3, 7, 13, 13, 15, 69}
+        };
+        static final int MAX_DIMENSIONS = DIRECTIONS.length + 1;
+        private static final int[][] V = directionNumbers();
+
+        private final int[] point;
+        private long index;
+
+        // Positioned on point number start
+        Sobol(int dimensions, long start) {
+            if (dimensions > MAX_DIMENSIONS) throw new IllegalArgumentException("At most " + MAX_DIMENSIONS + " Sobol dimensions");
+            this.point = new int[dimensions];
+            this.index = start;
+            long gray = start ^ (start >>> 1);
+            for (int bit = 0; gray != 0; bit++, gray >>>= 1) {
+                if ((gray & 1) != 0) {
+                    for (int d = 0; d < dimensions; d++) point[d] ^= V[d][bit];
+                }
+            }
+        }
+
+        // Coordinate d of the current point as an unsigned 32-bit binary fraction
+        int coordinate(int d) {
+            return point[d];
+        }
+
+        void advance() {
+            int bit = Long.numberOfTrailingZeros(~index);
+            for (int d = 0; d < point.length; d++) point[d] ^= V[d][bit];
+            index++;
+        }
+
+        private static int[][] directionNumbers() {
+            int[][] v = new int[MAX_DIMENSIONS][BITS];
+            for (int i = 0; i < BITS; i++) v[0][i] = 1 << (BITS - 1 - i);
+            for (int d = 1; d < MAX_DIMENSIONS; d++) {
+                int[] row = DIRECTIONS[d - 1];
+                int s = row[0];
+                int a = row[1];
+                for (int i = 0; i < s; i++) v[d][i] = row[2 + i] << (BITS - 1 - i);
+                for (int i = s; i < BITS; i++) {
+                    int value = v[d][i - s] ^ (v[d][i - s] >>> s);
+                    for (int k = 1; k < s; k++) {
+                        if (((a >>> (s - 1 - k)) & 1) != 0) value ^= v[d][i - k];
+                    }
+                    v[d][i] = value;
+                }
+            }
+            return v;
+        }
+    }
+
+    // Brownian bridge over unit time steps: the first normal fixes the end point, the next
+    // ones fill midpoints coarse to fine, so low Sobol dimensions carry most of the variance
+    static final class BrownianBridge {
+        private final int[] fill;
+        private final int[] left;
+        private final int[] right;
+        private final double[] leftWeight;
+        private final double[] rightWeight;
+        private final double[] sigma;
+
+        BrownianBridge(int steps) {
+            fill = new int[steps];
+            left = new int[steps];
+            right = new int[steps];
+            leftWeight = new double[steps];
+            rightWeight = new double[steps];
+            sigma = new double[steps];
+            if (steps == 0) return;
+
+            fill[0] = steps - 1;
+            left[0] = -1;
+            right[0] = -1;
+            sigma[0] = Math.sqrt(steps);
+            int[] queueLeft = new int[2 * steps];
+            int[] queueRight = new int[2 * steps];
+            int head = 0;
+            int tail = 0;
+            queueLeft[tail] = -1;
+            queueRight[tail++] = steps - 1;
+            int next = 1;
+            while (head < tail) {
+                int l = queueLeft[head];
+                int r = queueRight[head++];
+                if (r - l < 2) continue;
+                int m = l + (r - l) / 2;
+                // W at index i is the value at time i + 1; index -1 is W(0) = 0
+                double tl = l + 1;
+                double tm = m + 1;
+                double tr = r + 1;
+                fill[next] = m;
+                left[next] = l;
+                right[next] = r;
+                leftWeight[next] = (tr - tm) / (tr - tl);
+                rightWeight[next] = (tm - tl) / (tr - tl);
+                sigma[next] = Math.sqrt((tm - tl) * (tr - tm) / (tr - tl));
+                next++;
+                queueLeft[tail] = l;
+                queueRight[tail++] = m;
+                queueLeft[tail] = m;
+                queueRight[tail++] = r;
+            }
+        }
+
+        // Turns bridge-ordered normals into the yearly N(0, 1) increments of the path
+        void increments(double[] normals, double[] shocks) {
+            int steps = fill.length;
+            if (steps == 0) return;
+            double[] w = shocks;
+            w[fill[0]] = sigma[0] * normals[0];
+            for (int k = 1; k < steps; k++) {
+                double wl = left[k] < 0 ? 0 : w[left[k]];
+                w[fill[k]] = leftWeight[k] * wl + rightWeight[k] * w[right[k]] + sigma[k] * normals[k];
+            }
+            for (int t = steps - 1; t > 0; t--) {
+                w[t] -= w[t - 1];
+            }
+        }
+    }
+}
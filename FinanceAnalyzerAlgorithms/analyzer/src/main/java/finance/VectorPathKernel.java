@@ -0,0 +1,167 @@
+package finance;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// SIMD version of ScalarPathKernel on the JDK Vector API: the counter-mode
+// SplitMix64 draws, Box-Muller and the compounding multiply all run in lanes.
+// Needs --add-modules jdk.incubator.vector at compile and run time; PathKernel.vector()
+// only loads this class when the module is present. The uniforms are bit-identical
+// to the scalar kernel's. VectorOperators.LOG/SIN/COS give different last bits once C2
+// has intrinsified them, so log, sin and cos are polynomials in plain lane arithmetic
+// instead, mirrored op for op in the scalar tail: the balances are the same on every
+// run and any vector width, and agree with the scalar kernel's to about 1e-15.
+final class VectorPathKernel extends ScalarPathKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONG_SPECIES = VectorSpecies.of(long.class, SPECIES.vectorShape());
+
+    private static final long EXPONENT_BITS = 0x7FF0000000000000L;
+    private static final long ONE_BITS = 0x3FF0000000000000L;
+    private static final long TWO_52_BITS = 0x4330000000000000L;
+    private static final double TWO_52 = 0x1.0p52; // adding and subtracting it rounds to an integer
+    private static final double SQRT2 = 1.4142135623730951;
+    private static final double LN2_HI = 6.93147180369123816490e-01; // fdlibm's split of ln 2
+    private static final double LN2_LO = 1.90821492927058770002e-10;
+    private static final double HALF_PI = Math.PI / 2;
+    // log(m) = 2s (1 + s^2/3 + s^4/5 + ...) with s = (m - 1) / (m + 1), |s| <= 0.172
+    private static final double[] LOG_SERIES = {
+            1.0 / 3, 1.0 / 5, 1.0 / 7, 1.0 / 9, 1.0 / 11, 1.0 / 13, 1.0 / 15, 1.0 / 17, 1.0 / 19, 1.0 / 21};
+    // Taylor series of sin and cos on [-pi/4, pi/4]
+    private static final double[] SIN_SERIES = taylor(1);
+    private static final double[] COS_SERIES = taylor(0);
+
+    @Override
+    public String name() {
+        return "vector-batch (" + SPECIES.length() + " lanes)";
+    }
+
+    @Override
+    void gaussians(long base, double[] shocks, int pairs) {
+        int lanes = SPECIES.length();
+        LongVector pairIndex = LongVector.zero(LONG_SPECIES).addIndex(1);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(pairs); i < bound; i += lanes) {
+            LongVector first = pairIndex.add(i).mul(2);
+            DoubleVector u1 = uniform(first.mul(GOLDEN_GAMMA).add(base)).neg().add(1.0);
+            DoubleVector u2 = uniform(first.add(1).mul(GOLDEN_GAMMA).add(base));
+            DoubleVector r = log(u1).mul(-2.0).sqrt();
+
+            // 2 pi u2 = q pi/2 + y with q in 0..4 and |y| <= pi/4; 4 u2 - q is exact
+            DoubleVector x = u2.mul(4.0);
+            DoubleVector q = x.add(TWO_52).sub(TWO_52);
+            DoubleVector y = x.sub(q).mul(HALF_PI);
+            DoubleVector y2 = y.mul(y);
+            DoubleVector sin = series(y2, SIN_SERIES).mul(y);
+            DoubleVector cos = series(y2, COS_SERIES);
+            VectorMask<Double> odd = q.compare(VectorOperators.EQ, 1.0).or(q.compare(VectorOperators.EQ, 3.0));
+            VectorMask<Double> cosNegative = q.compare(VectorOperators.GE, 1.0).and(q.compare(VectorOperators.LE, 2.0));
+            VectorMask<Double> sinNegative = q.compare(VectorOperators.GE, 2.0).and(q.compare(VectorOperators.LE, 3.0));
+            DoubleVector c = cos.blend(sin, odd).lanewise(VectorOperators.NEG, cosNegative);
+            DoubleVector s = sin.blend(cos, odd).lanewise(VectorOperators.NEG, sinNegative);
+            r.mul(c).intoArray(shocks, i);
+            r.mul(s).intoArray(shocks, pairs + i);
+        }
+        for (; i < pairs; i++) {
+            double u1 = 1.0 - (mix64(base + (2L * i) * GOLDEN_GAMMA) >>> 11) * DOUBLE_UNIT;
+            double u2 = (mix64(base + (2L * i + 1) * GOLDEN_GAMMA) >>> 11) * DOUBLE_UNIT;
+            double r = Math.sqrt(log(u1) * -2.0);
+
+            double x = u2 * 4.0;
+            double q = x + TWO_52 - TWO_52;
+            double y = (x - q) * HALF_PI;
+            double y2 = y * y;
+            double sin = series(y2, SIN_SERIES) * y;
+            double cos = series(y2, COS_SERIES);
+            boolean odd = q == 1.0 || q == 3.0;
+            double c = odd ? sin : cos;
+            double s = odd ? cos : sin;
+            if (q >= 1.0 && q <= 2.0) c = -c;
+            if (q >= 2.0 && q <= 3.0) s = -s;
+            shocks[i] = r * c;
+            shocks[pairs + i] = r * s;
+        }
+    }
+
+    @Override
+    void compound(double[] balances, int offset, double[] shocks, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector growth = DoubleVector.fromArray(SPECIES, shocks, i)
+                    .mul(RETURN_SD).add(MEAN_RETURN).add(1.0);
+            DoubleVector.fromArray(SPECIES, balances, offset + i).mul(growth).intoArray(balances, offset + i);
+        }
+        for (; i < n; i++) {
+            balances[offset + i] *= 1 + (shocks[i] * RETURN_SD + MEAN_RETURN);
+        }
+    }
+
+    // Lane-wise SplitMix64 mix of the counters, scaled to [0, 1) like SplittableRandom.nextDouble
+    private static DoubleVector uniform(LongVector z) {
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 30)).mul(0xbf58476d1ce4e5b9L);
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 27)).mul(0x94d049bb133111ebL);
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 31));
+        return ((DoubleVector) z.lanewise(VectorOperators.LSHR, 11).convert(VectorOperators.L2D, 0)).mul(DOUBLE_UNIT);
+    }
+
+    // Natural log of u in [2^-53, 1]: u = 2^k m with m in [sqrt(1/2), sqrt(2)). The biased
+    // exponent goes into the low bits of 2^52, so k is read without a long-to-double conversion.
+    private static DoubleVector log(DoubleVector u) {
+        LongVector bits = u.reinterpretAsLongs();
+        DoubleVector k = bits.lanewise(VectorOperators.LSHR, 52).or(TWO_52_BITS).reinterpretAsDoubles()
+                .sub(TWO_52 + 1023);
+        DoubleVector m = bits.and(~EXPONENT_BITS).or(ONE_BITS).reinterpretAsDoubles();
+        VectorMask<Double> high = m.compare(VectorOperators.GT, SQRT2);
+        m = m.blend(m.mul(0.5), high);
+        k = k.blend(k.add(1.0), high);
+        DoubleVector f = m.sub(1.0);
+        DoubleVector s = f.div(f.add(2.0));
+        DoubleVector z = s.mul(s);
+        DoubleVector logM = s.mul(2.0).mul(series(z, LOG_SERIES).mul(z).add(1.0));
+        return k.mul(LN2_HI).add(k.mul(LN2_LO).add(logM));
+    }
+
+    private static double log(double u) {
+        long bits = Double.doubleToRawLongBits(u);
+        double k = Double.longBitsToDouble(bits >>> 52 | TWO_52_BITS) - (TWO_52 + 1023);
+        double m = Double.longBitsToDouble(bits & ~EXPONENT_BITS | ONE_BITS);
+        if (m > SQRT2) {
+            m = m * 0.5;
+            k = k + 1.0;
+        }
+        double f = m - 1.0;
+        double s = f / (f + 2.0);
+        double z = s * s;
+        double logM = s * 2.0 * (series(z, LOG_SERIES) * z + 1.0);
+        return k * LN2_HI + (k * LN2_LO + logM);
+    }
+
+    // c[0] + c[1] z + ... + c[9] z^9 by Horner's rule. Written out, because C2 boxes vectors
+    // carried around a loop and the kernel then runs about 3x slower.
+    private static DoubleVector series(DoubleVector z, double[] c) {
+        return DoubleVector.broadcast(SPECIES, c[9]).mul(z).add(c[8]).mul(z).add(c[7]).mul(z).add(c[6])
+                .mul(z).add(c[5]).mul(z).add(c[4]).mul(z).add(c[3]).mul(z).add(c[2]).mul(z).add(c[1])
+                .mul(z).add(c[0]);
+    }
+
+    private static double series(double z, double[] c) {
+        double sum = c[c.length - 1];
+        for (int j = c.length - 2; j >= 0; j--) {
+            sum = sum * z + c[j];
+        }
+        return sum;
+    }
+
+    // Ten terms of the series in y^2 of sin(y) / y (first = 1) or cos(y) (first = 0)
+    private static double[] taylor(int first) {
+        double[] c = new double[10];
+        double term = 1;
+        for (int j = 0, n = first; j < c.length; j++, n += 2) {
+            c[j] = term;
+            term = -term / ((n + 1) * (n + 2));
+        }
+        return c;
+    }
+}
@@ -0,0 +1,168 @@
+package finance;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+// Every split must add up to its parent to the cent and keep each category within its own
+// min/max, for awkward totals and after any sequence of incremental updates; an update
+// must leave the same amounts as allocating from scratch with the new settings.
+class BudgetAllocatorTest {
+    private static final long[] PRIMES = {2, 3, 7, 101, 7_919, 104_729, 999_983, 15_485_863};
+
+    @Test
+    void oneCentGoesToExactlyOneCategory() {
+        BudgetAllocator allocator = BudgetAllocator.flat(new String[] {"a", "b", "c"}, new double[] {1, 1, 1});
+        allocator.allocate(1);
+        assertSplitsExact(allocator);
+        // Equal fractions: the first child gets the cent
+        assertEquals(1, allocator.amount(0));
+
+        allocator = BudgetAllocator.flat(new String[] {"a", "b", "c"}, new double[] {1, 5, 2});
+        allocator.allocate(1);
+        assertSplitsExact(allocator);
+        assertEquals(1, allocator.amount(1));
+    }
+
+    @Test
+    void primeTotalsSplitExactly() {
+        double[][] priorities = {{1, 1, 1}, {3, 5, 7}, {0.1, 0.2, 0.3, 0.4}, {1, 1e-9, 1e9}, {2, 3, 5, 7, 11, 13}};
+        for (double[] weights : priorities) {
+            String[] names = new String[weights.length];
+            for (int v = 0; v < names.length; v++) names[v] = "c" + v;
+            BudgetAllocator allocator = BudgetAllocator.flat(names, weights);
+            for (long total : PRIMES) {
+                allocator.allocate(total);
+                assertSplitsExact(allocator);
+            }
+        }
+    }
+
+    @Test
+    void everyCategoryCapped() {
+        String[] names = {"rent", "food", "fun", "savings"};
+        double[] priorities = {5, 3, 1, 2};
+        long[] min = {0, 1_000, 0, 0};
+        long[] max = {80_000, 30_011, 7, 50_000};
+        BudgetAllocator allocator = new BudgetAllocator(names, new int[] {-1, -1, -1, -1}, priorities, min, max);
+        long capacity = Arrays.stream(max).sum();
+
+        allocator.allocate(capacity);
+        assertSplitsExact(allocator, min, max);
+        for (int v = 0; v < names.length; v++) assertEquals(max[v], allocator.amount(v), names[v]);
+
+        for (long total : new long[] {1_000, 1_001, 104_729, capacity - 1}) {
+            allocator.allocate(total);
+            assertSplitsExact(allocator, min, max);
+        }
+        assertThrows(IllegalArgumentException.class, () -> allocator.allocate(capacity + 1));
+        assertThrows(IllegalArgumentException.class, () -> allocator.allocate(999));
+    }
+
+    @Test
+    void cappedSubtreeSplitsExactly() {
+        // housing and its children are all capped, and the caps add up to an odd prime
+        String[] names = {"housing", "rent", "utilities", "repairs", "other", "food", "fun"};
+        int[] parents = {-1, 0, 0, 0, -1, 4, 4};
+        double[] priorities = {4, 6, 1, 1, 1, 2, 1};
+        long[] min = {0, 50_000, 3, 0, 0, 0, 0};
+        long[] max = {70_001, 60_000, 9_999, 2, BudgetAllocator.UNBOUNDED, 12_345, BudgetAllocator.UNBOUNDED};
+        BudgetAllocator allocator = new BudgetAllocator(names, parents, priorities, min, max);
+        for (long total : new long[] {50_003, 70_001, 104_729, 999_983}) {
+            allocator.allocate(total);
+            assertSplitsExact(allocator, min, max);
+        }
+    }
+
+    @Test
+    void incrementalUpdatesMatchAFullAllocation() {
+        for (long seed = 1; seed <= 20; seed++) {
+            SplittableRandom rng = new SplittableRandom(seed);
+            int n = 40;
+            String[] names = new String[n];
+            int[] parents = new int[n];
+            double[] priorities = new double[n];
+            long[] min = new long[n];
+            long[] max = new long[n];
+            for (int v = 0; v < n; v++) {
+                names[v] = "c" + v;
+                parents[v] = v < 4 ? -1 : rng.nextInt(-1, v);
+                priorities[v] = rng.nextDouble(0.1, 10);
+                max[v] = BudgetAllocator.UNBOUNDED;
+            }
+            BudgetAllocator allocator = new BudgetAllocator(names, parents, priorities.clone(), min.clone(), max.clone());
+            long total = PRIMES[PRIMES.length - 1];
+            allocator.allocate(total);
+            assertSplitsExact(allocator, min, max);
+
+            int applied = 0;
+            for (int step = 0; step < 200; step++) {
+                int category = rng.nextInt(n);
+                double priority = rng.nextDouble(0.1, 10);
+                long low = rng.nextInt(4) == 0 ? rng.nextLong(0, 500_000) : 0;
+                long high = rng.nextInt(3) == 0 ? low + rng.nextLong(0, 2_000_000) : BudgetAllocator.UNBOUNDED;
+                long[] before = amounts(allocator);
+                try {
+                    allocator.update(category, priority, low, high);
+                } catch (IllegalArgumentException e) {
+                    // Infeasible: nothing changes
+                    assertArrayEquals(before, amounts(allocator), "seed " + seed + ", step " + step);
+                    continue;
+                }
+                priorities[category] = priority;
+                min[category] = low;
+                max[category] = high;
+                applied++;
+                assertSplitsExact(allocator, min, max);
+
+                BudgetAllocator fresh = new BudgetAllocator(names, parents, priorities.clone(), min.clone(), max.clone());
+                fresh.allocate(total);
+                assertArrayEquals(amounts(fresh), amounts(allocator), "seed " + seed + ", step " + step);
+            }
+            assertTrue(applied > 100, "seed " + seed + ": only " + applied + " updates were feasible");
+        }
+    }
+
+    // Children add up to their parent, top-level categories to the total, and every
+    // category is within its own limits
+    private static void assertSplitsExact(BudgetAllocator allocator, long[] min, long[] max) {
+        int n = allocator.size();
+        long[] childSums = new long[n];
+        boolean[] hasChildren = new boolean[n];
+        long topLevel = 0;
+        for (int v = 0; v < n; v++) {
+            long amount = allocator.amount(v);
+            assertTrue(amount >= min[v] && amount <= max[v], allocator.name(v) + " is outside its limits: " + amount);
+            int parent = allocator.parent(v);
+            if (parent < 0) {
+                topLevel += amount;
+            } else {
+                childSums[parent] += amount;
+                hasChildren[parent] = true;
+            }
+        }
+        assertEquals(allocator.total(), topLevel, "top-level categories");
+        for (int v = 0; v < n; v++) {
+            if (hasChildren[v]) assertEquals(allocator.amount(v), childSums[v], "children of " + allocator.name(v));
+        }
+    }
+
+    // Flat categories without limits
+    private static void assertSplitsExact(BudgetAllocator allocator) {
+        long[] max = new long[allocator.size()];
+        Arrays.fill(max, BudgetAllocator.UNBOUNDED);
+        assertSplitsExact(allocator, new long[allocator.size()], max);
+    }
+
+    private static long[] amounts(BudgetAllocator allocator) {
+        long[] amounts = new long[allocator.size()];
+        for (int v = 0; v < amounts.length; v++) amounts[v] = allocator.amount(v);
+        return amounts;
+    }
+}
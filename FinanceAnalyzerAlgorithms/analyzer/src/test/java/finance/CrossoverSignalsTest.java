@@ -0,0 +1,92 @@
+package finance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+// FinanceAnalyzer.crossoverSignals and StreamingCrossover against the per-window reference
+// (calculateMovingAverage + generateTradingSignals), which both must match on every day.
+// Prices are in whole cents, where the window sums are exact in long cents, so the tests
+// can also tell that the inputs really contain days where the two averages are equal.
+class CrossoverSignalsTest {
+    // Short periods tie often on cent prices; the longer pairs are the usual ones
+    private static final int[][] PAIRS = {{2, 4}, {3, 6}, {5, 20}, {7, 14}, {10, 50}, {16, 37}};
+
+    @Test
+    void randomWalksMatchTheReference() {
+        int ties = 0;
+        for (long seed = 1; seed <= 4; seed++) {
+            // Short enough that the walk stays well away from 0.00
+            double[] prices = walk(20_000, seed);
+            for (int[] pair : PAIRS) {
+                assertMatchesReference(prices, pair[0], pair[1]);
+                ties += ties(prices, pair[0], pair[1]);
+            }
+        }
+        assertTrue(ties > 0, "no tie days in the random walks");
+    }
+
+    @Test
+    void repeatingPricesMatchTheReference() {
+        // Period 7 makes the sma:7/sma:14 averages equal on every day
+        double[] prices = new double[100_000];
+        for (int i = 0; i < prices.length; i++) prices[i] = Math.round((0.1 * (i % 7) + 0.3) * 100) / 100.0;
+        for (int[] pair : PAIRS) {
+            assertMatchesReference(prices, pair[0], pair[1]);
+        }
+        assertTrue(ties(prices, 7, 14) > 0, "no tie days in the repeating prices");
+    }
+
+    private static void assertMatchesReference(double[] prices, int shortPeriod, int longPeriod) {
+        List<Double> boxed = new ArrayList<>(prices.length);
+        for (double price : prices) boxed.add(price);
+        List<Double> shortMA = FinanceAnalyzer.calculateMovingAverage(boxed, shortPeriod);
+        List<Double> longMA = FinanceAnalyzer.calculateMovingAverage(boxed, longPeriod);
+        List<String> reference = FinanceAnalyzer.generateTradingSignals(
+                shortMA.subList(longPeriod - shortPeriod, shortMA.size()), longMA);
+
+        Signal[] signals = FinanceAnalyzer.crossoverSignals(prices, shortPeriod, longPeriod);
+        List<String> actual = new ArrayList<>(signals.length);
+        for (int i = 0; i < signals.length; i++) actual.add("Day " + (i + 2) + ": " + signals[i]);
+        assertEquals(reference, actual, "sma:" + shortPeriod + "/sma:" + longPeriod);
+
+        StreamingCrossover streaming = new StreamingCrossover(shortPeriod, longPeriod);
+        List<String> streamed = new ArrayList<>(reference.size());
+        for (double price : prices) {
+            Signal signal = streaming.onPrice(price);
+            if (signal != null) streamed.add("Day " + streaming.day() + ": " + signal);
+        }
+        assertEquals(reference, streamed, "streaming sma:" + shortPeriod + "/sma:" + longPeriod);
+    }
+
+    // Days where the short and long averages are exactly equal
+    private static int ties(double[] prices, int shortPeriod, int longPeriod) {
+        long[] cents = new long[prices.length + 1];
+        for (int i = 0; i < prices.length; i++) cents[i + 1] = cents[i] + Math.round(prices[i] * 100);
+        int ties = 0;
+        for (int t = longPeriod - 1; t < prices.length; t++) {
+            long shortSum = cents[t + 1] - cents[t + 1 - shortPeriod];
+            long longSum = cents[t + 1] - cents[t + 1 - longPeriod];
+            if (shortSum * longPeriod == longSum * shortPeriod) ties++;
+        }
+        return ties;
+    }
+
+    // Geometric random walk from 100 with 1% daily volatility, rounded to cents
+    private static double[] walk(int n, long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        double[] prices = new double[n];
+        double price = 100;
+        for (int i = 0; i < n; i++) {
+            double u = 1 - rng.nextDouble();
+            price *= 1 + 0.01 * Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * rng.nextDouble());
+            prices[i] = Math.round(price * 100) / 100.0;
+        }
+        return prices;
+    }
+}
@@ -0,0 +1,115 @@
+package finance;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+// Hamerly's bounds must give the exhaustive assignment pass for pass: same assignments,
+// same centroids, same number of iterations. A tolerance of 0 runs every fit until no
+// centroid moves, so the bounds are carried through many updates.
+class KMeansEngineTest {
+    private static final int[] CLUSTER_COUNTS = {1, 2, 5, 8, 20};
+
+    @Test
+    void hamerlyMatchesExhaustiveOnBlobs() {
+        for (long seed = 1; seed <= 3; seed++) {
+            // More than two chunks, with amounts in cents and whole-day dates, so points repeat
+            double[][] points = blobs(40_000, 6, seed);
+            for (int k : CLUSTER_COUNTS) {
+                assertSameFits(points[0], points[1], k, seed);
+            }
+        }
+    }
+
+    @Test
+    void hamerlyMatchesExhaustiveOnDuplicatePoints() {
+        // A 10 x 10 grid, every point 50 times: distances tie exactly all the time
+        int n = 5_000;
+        double[] amounts = new double[n];
+        double[] dates = new double[n];
+        for (int i = 0; i < n; i++) {
+            amounts[i] = i % 10;
+            dates[i] = (i / 10) % 10;
+        }
+        for (long seed = 1; seed <= 3; seed++) {
+            for (int k : CLUSTER_COUNTS) {
+                assertSameFits(amounts, dates, k, seed);
+            }
+        }
+
+        // Three distinct points and more clusters than that, so seeds and centroids repeat
+        double[] fewAmounts = new double[300];
+        double[] fewDates = new double[300];
+        for (int i = 0; i < fewAmounts.length; i++) {
+            fewAmounts[i] = 12.5 * (i % 3);
+            fewDates[i] = 7 * (i % 3);
+        }
+        for (long seed = 1; seed <= 3; seed++) {
+            assertSameFits(fewAmounts, fewDates, 5, seed);
+        }
+    }
+
+    @Test
+    void hamerlyMatchesExhaustiveOnSmallGrids() {
+        // A few points on a small integer grid: centroids often end up exactly as far from a
+        // point as its own, which is where touching bounds used to skip the lowest-index scan
+        for (long seed = 1; seed <= 5_000; seed++) {
+            SplittableRandom rng = new SplittableRandom(seed);
+            int n = 4 + rng.nextInt(30);
+            int span = 2 + rng.nextInt(6);
+            double[] amounts = new double[n];
+            double[] dates = new double[n];
+            for (int i = 0; i < n; i++) {
+                amounts[i] = rng.nextInt(span);
+                dates[i] = rng.nextInt(span);
+            }
+            assertSameFits(amounts, dates, 2 + rng.nextInt(4), seed);
+        }
+    }
+
+    private static void assertSameFits(double[] amounts, double[] dates, int k, long seed) {
+        int[][] seedings = {
+                KMeansEngine.randomSeeds(amounts.length, k, new Random(seed)),
+                KMeansEngine.kMeansPlusPlusSeeds(amounts, dates, k, new Random(seed))
+        };
+        for (int[] seeds : seedings) {
+            KMeansEngine.Result exhaustive = new KMeansEngine(amounts, dates, k)
+                    .fit(seeds, KMeansEngine.DEFAULT_MAX_ITERATIONS, 0, KMeansEngine.Assignment.EXHAUSTIVE);
+            KMeansEngine.Result hamerly = new KMeansEngine(amounts, dates, k)
+                    .fit(seeds, KMeansEngine.DEFAULT_MAX_ITERATIONS, 0, KMeansEngine.Assignment.HAMERLY);
+            String fit = "k=" + k + ", seed " + seed;
+            assertArrayEquals(exhaustive.assignments(), hamerly.assignments(), fit);
+            assertArrayEquals(exhaustive.centroidAmounts(), hamerly.centroidAmounts(), fit);
+            assertArrayEquals(exhaustive.centroidDates(), hamerly.centroidDates(), fit);
+            assertEquals(exhaustive.iterations(), hamerly.iterations(), fit);
+        }
+    }
+
+    // amount,date points around k blob centres, in cents and whole days like expenses.csv
+    private static double[][] blobs(int n, int k, long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        double[] centreAmounts = new double[k];
+        double[] centreDates = new double[k];
+        for (int j = 0; j < k; j++) {
+            centreAmounts[j] = rng.nextDouble(10, 2000);
+            centreDates[j] = rng.nextDouble(1, 365);
+        }
+        double[] amounts = new double[n];
+        double[] dates = new double[n];
+        for (int i = 0; i < n; i++) {
+            int j = rng.nextInt(k);
+            amounts[i] = Math.round((centreAmounts[j] + 40 * gaussian(rng)) * 100) / 100.0;
+            dates[i] = Math.round(centreDates[j] + 10 * gaussian(rng));
+        }
+        return new double[][] {amounts, dates};
+    }
+
+    private static double gaussian(SplittableRandom rng) {
+        double u = 1 - rng.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * rng.nextDouble());
+    }
+}
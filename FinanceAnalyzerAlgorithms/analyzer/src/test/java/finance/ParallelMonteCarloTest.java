@@ -0,0 +1,61 @@
+package finance;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+// A seed must give the same results whatever the thread count, on every path kernel.
+// Surefire adds jdk.incubator.vector, so the vector kernel is covered too.
+class ParallelMonteCarloTest {
+    // Several full blocks and a partial one, so blocks land on different workers
+    private static final long PATHS = 5L * ParallelMonteCarlo.BLOCK_PATHS + 123;
+    private static final int YEARS = 30;
+    private static final double[] QUANTILES = {0.01, 0.05, 0.25, 0.5, 0.75, 0.95, 0.99};
+
+    @Test
+    void sameSeedGivesSameStatsOnAnyThreadCount() {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        for (PathKernel kernel : kernels()) {
+            for (long seed : new long[] {1, 42}) {
+                double[] serialBalances = new double[(int) PATHS];
+                double[] parallelBalances = new double[(int) PATHS];
+                MonteCarloStats serial = ParallelMonteCarlo.run(100, YEARS, PATHS, seed, 1, kernel, serialBalances);
+                MonteCarloStats parallel = ParallelMonteCarlo.run(100, YEARS, PATHS, seed, threads, kernel, parallelBalances);
+
+                String run = kernel.name() + ", seed " + seed;
+                assertEquals(PATHS, parallel.count(), run);
+                assertEquals(serial.count(), parallel.count(), run);
+                assertEquals(serial.mean(), parallel.mean(), run);
+                assertEquals(serial.variance(), parallel.variance(), run);
+                assertEquals(serial.min(), parallel.min(), run);
+                assertEquals(serial.max(), parallel.max(), run);
+                for (double q : QUANTILES) {
+                    assertEquals(serial.quantile(q), parallel.quantile(q), run + ", quantile " + q);
+                }
+                assertArrayEquals(serialBalances, parallelBalances, run);
+            }
+        }
+    }
+
+    @Test
+    void balancesArrayDoesNotChangeTheStats() {
+        for (PathKernel kernel : kernels()) {
+            MonteCarloStats streamed = ParallelMonteCarlo.run(100, YEARS, PATHS, 7, 3, kernel, null);
+            MonteCarloStats kept = ParallelMonteCarlo.run(100, YEARS, PATHS, 7, 3, kernel, new double[(int) PATHS]);
+            assertEquals(streamed.mean(), kept.mean(), kernel.name());
+            assertEquals(streamed.variance(), kept.variance(), kernel.name());
+            assertEquals(streamed.quantile(0.5), kept.quantile(0.5), kernel.name());
+        }
+    }
+
+    private static List<PathKernel> kernels() {
+        List<PathKernel> kernels = new ArrayList<>(List.of(PathKernel.PER_PATH, new ScalarPathKernel()));
+        PathKernel vector = PathKernel.vector();
+        if (vector != null) kernels.add(vector);
+        return kernels;
+    }
+}
@@ -0,0 +1,108 @@
+package finance;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Binary result files must read back exactly what was written, and convert to the same
+// CSV text the menu's writers produce
+class ResultFilesTest {
+    private static final int HEADER_BYTES = 16;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void balancesRoundTrip() throws IOException {
+        // More than the 1 MB write buffer, plus values that must keep their exact bits
+        SplittableRandom rng = new SplittableRandom(1);
+        double[] balances = new double[300_000];
+        for (int i = 0; i < balances.length; i++) balances[i] = rng.nextDouble(0, 1e6);
+        balances[0] = -0.0;
+        balances[1] = Double.NaN;
+        balances[2] = Double.POSITIVE_INFINITY;
+        balances[3] = Double.MIN_VALUE;
+        balances[4] = -123.455;
+
+        Path file = dir.resolve("balances.bin");
+        ResultFiles.writeBalances(balances, file);
+        assertEquals(HEADER_BYTES + (long) balances.length * Double.BYTES, Files.size(file));
+        assertArrayEquals(balances, ResultFiles.readBalances(file));
+
+        List<String> csv = new ArrayList<>();
+        for (double balance : balances) csv.add(String.format("%.2f", balance));
+        assertEquals(csv, toCsv(file));
+    }
+
+    @Test
+    void emptyBalancesRoundTrip() throws IOException {
+        Path file = dir.resolve("empty-balances.bin");
+        ResultFiles.writeBalances(new double[0], file);
+        assertEquals(HEADER_BYTES, Files.size(file));
+        assertEquals(0, ResultFiles.readBalances(file).length);
+        assertEquals(List.of(), toCsv(file));
+    }
+
+    @Test
+    void signalsRoundTrip() throws IOException {
+        // Runs around every LEB128 length boundary, then enough short runs to fill the write buffer
+        int[] runs = {1, 127, 128, 129, 16_383, 16_384, 2_097_151, 2_097_152, 3};
+        List<Signal> days = new ArrayList<>();
+        Signal[] values = Signal.values();
+        for (int r = 0; r < runs.length; r++) {
+            for (int i = 0; i < runs[r]; i++) days.add(values[r % values.length]);
+        }
+        for (int i = 0; i < 700_000; i++) days.add(values[i % values.length]);
+        Signal[] signals = days.toArray(new Signal[0]);
+        long firstDay = 2;
+        assertSignalsRoundTrip(signals, firstDay);
+
+        List<String> csv = new ArrayList<>(signals.length);
+        for (int i = 0; i < signals.length; i++) csv.add("Day " + (firstDay + i) + ": " + signals[i]);
+        assertEquals(csv, toCsv(dir.resolve("signals.bin")));
+    }
+
+    @Test
+    void runLengthsUseAsManyVarintBytesAsNeeded() throws IOException {
+        // Header, first day, then one signal byte and 1, 2, 3 or 4 length bytes
+        long[][] lengths = {{127, 1}, {128, 2}, {16_383, 2}, {16_384, 3}, {2_097_151, 3}, {2_097_152, 4}};
+        for (long[] length : lengths) {
+            Signal[] signals = new Signal[(int) length[0]];
+            Arrays.fill(signals, Signal.HOLD);
+            Path file = assertSignalsRoundTrip(signals, 1L << 40);
+            assertEquals(HEADER_BYTES + Long.BYTES + 1 + length[1], Files.size(file), "run of " + length[0]);
+        }
+    }
+
+    @Test
+    void emptySignalsRoundTrip() throws IOException {
+        Path file = assertSignalsRoundTrip(new Signal[0], 2);
+        assertEquals(HEADER_BYTES + Long.BYTES, Files.size(file));
+        assertEquals(List.of(), toCsv(file));
+    }
+
+    private Path assertSignalsRoundTrip(Signal[] signals, long firstDay) throws IOException {
+        Path file = dir.resolve("signals.bin");
+        ResultFiles.writeSignals(signals, firstDay, file);
+        ResultFiles.Signals read = ResultFiles.readSignals(file);
+        assertEquals(firstDay, read.firstDay());
+        assertArrayEquals(signals, read.days());
+        return file;
+    }
+
+    private List<String> toCsv(Path binary) throws IOException {
+        Path csv = ResultFiles.csvName(binary);
+        ResultFiles.toCsv(binary, csv);
+        return Files.readAllLines(csv);
+    }
+}
@@ -0,0 +1,68 @@
+package finance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Line-by-line FinanceAnalyzer.readStockPrices against the memory-mapped CsvLoader,
+// on synthetic files written to a temporary directory
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvReaderBenchmark {
+    @Param({"100000", "1000000"})
+    int rows;
+
+    private Path directory;
+    private Path prices;
+    private Path expenses;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("csv-benchmark");
+        prices = directory.resolve("prices.csv");
+        expenses = directory.resolve("expenses.csv");
+        SyntheticData.writePrices(SyntheticData.prices(rows, 42), prices);
+        SyntheticData.writeExpenses(SyntheticData.expenses(rows, 5, 42), expenses);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(prices);
+        Files.deleteIfExists(expenses);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public List<Double> referencePrices() throws IOException {
+        return FinanceAnalyzer.readStockPrices(prices.toString());
+    }
+
+    @Benchmark
+    public double[] prices() throws IOException {
+        return CsvLoader.loadPrices(prices);
+    }
+
+    @Benchmark
+    public CsvLoader.ExpenseColumns expenses() throws IOException {
+        return CsvLoader.loadExpenses(expenses);
+    }
+}
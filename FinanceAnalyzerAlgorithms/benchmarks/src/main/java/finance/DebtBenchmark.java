@@ -0,0 +1,59 @@
+package finance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Month-by-month FinanceAnalyzer.optimizeDebtRepayment against the closed-form DebtPlanner
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DebtBenchmark {
+    @Param({"3", "8", "20"})
+    int debts;
+
+    private double[] balances;
+    private double[] rates;
+    private double payment;
+
+    @Setup
+    public void setUp() {
+        double[][] portfolio = SyntheticData.debts(debts, 42);
+        balances = portfolio[0];
+        rates = portfolio[1];
+        payment = SyntheticData.debtPayment(portfolio);
+    }
+
+    @Benchmark
+    public List<String> referenceAvalanche() {
+        // The reference pays the balances down in place, so it needs fresh debts every call
+        List<FinanceAnalyzer.Debt> list = new ArrayList<>(debts);
+        for (int i = 0; i < debts; i++) list.add(new FinanceAnalyzer.Debt(balances[i], rates[i]));
+        return FinanceAnalyzer.optimizeDebtRepayment(list, payment);
+    }
+
+    @Benchmark
+    public DebtPlanner.Plan avalanche() {
+        return DebtPlanner.plan(DebtPlanner.Strategy.AVALANCHE, balances, rates, payment);
+    }
+
+    @Benchmark
+    public DebtPlanner.Plan minimumInterest() {
+        return DebtPlanner.plan(DebtPlanner.Strategy.MIN_INTEREST, balances, rates, payment);
+    }
+}
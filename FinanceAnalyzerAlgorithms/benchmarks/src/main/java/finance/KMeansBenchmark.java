@@ -0,0 +1,67 @@
+package finance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// FinanceAnalyzer.kMeansClustering against KMeansEngine with both assignment steps.
+// The engine starts from fixed k-means++ seeds; the reference draws its own random
+// centroids, so its iteration count (and time) varies between invocations.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KMeansBenchmark {
+    @Param({"10000", "100000"})
+    int size;
+
+    @Param({"5", "20"})
+    int k;
+
+    private CsvLoader.ExpenseColumns expenses;
+    private List<FinanceAnalyzer.Expense> expenseObjects;
+    private int[] seeds;
+
+    @Setup
+    public void setUp() {
+        expenses = SyntheticData.expenses(size, k, 42);
+        expenseObjects = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            expenseObjects.add(new FinanceAnalyzer.Expense(expenses.amounts()[i], expenses.dates()[i]));
+        }
+        seeds = KMeansEngine.kMeansPlusPlusSeeds(expenses.amounts(), expenses.dates(), k, new Random(42));
+    }
+
+    @Benchmark
+    public List<List<FinanceAnalyzer.Expense>> referenceClustering() {
+        // Same starting centroids on every invocation, like the engine's seeds
+        return FinanceAnalyzer.kMeansClustering(expenseObjects, k, new Random(42));
+    }
+
+    @Benchmark
+    public KMeansEngine.Result exhaustive() {
+        return new KMeansEngine(expenses.amounts(), expenses.dates(), k)
+                .fit(seeds, KMeansEngine.DEFAULT_MAX_ITERATIONS, KMeansEngine.TOLERANCE, KMeansEngine.Assignment.EXHAUSTIVE);
+    }
+
+    @Benchmark
+    public KMeansEngine.Result hamerly() {
+        return new KMeansEngine(expenses.amounts(), expenses.dates(), k)
+                .fit(seeds, KMeansEngine.DEFAULT_MAX_ITERATIONS, KMeansEngine.TOLERANCE, KMeansEngine.Assignment.HAMERLY);
+    }
+}
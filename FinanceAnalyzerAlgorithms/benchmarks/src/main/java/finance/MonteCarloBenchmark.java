@@ -0,0 +1,55 @@
+package finance;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Serial FinanceAnalyzer.monteCarloSimulation loop against ParallelMonteCarlo and the
+// variance-reduced estimators; forked with the Vector API so the SIMD kernel can be used
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class MonteCarloBenchmark {
+    private static final double INITIAL = 10_000;
+
+    private final PathKernel kernel = PathKernel.parse("vector-batch");
+
+    @Param({"100000", "1000000"})
+    long paths;
+
+    @Param({"30"})
+    int years;
+
+    @Benchmark
+    public double referenceSimulation() {
+        SplittableRandom rng = new SplittableRandom(42);
+        double sum = 0;
+        for (long i = 0; i < paths; i++) {
+            sum += FinanceAnalyzer.monteCarloSimulation(INITIAL, years, rng);
+        }
+        return sum / paths;
+    }
+
+    @Benchmark
+    public MonteCarloStats parallelSimulation() {
+        return ParallelMonteCarlo.run(INITIAL, years, paths, 42, kernel, null);
+    }
+
+    @Benchmark
+    public VarianceReduction.Estimate controlVariate() {
+        return VarianceReduction.estimate(VarianceReduction.Mode.CONTROL_VARIATE, INITIAL, years, paths, 42);
+    }
+}
@@ -0,0 +1,88 @@
+package finance;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// FinanceAnalyzer.calculateMovingAverage against MovingAverageEngine, both
+// generateTradingSignals versions on the averages they produce, and the crossover's
+// two averages as two engine passes against one IndicatorPipeline pass.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MovingAverageBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    int size;
+
+    @Param({"50"})
+    int longPeriod;
+
+    private int shortPeriod;
+    private double[] prices;
+    private List<Double> boxedPrices;
+    private double[] shortMA;
+    private double[] longMA;
+    private List<Double> boxedShortMA;
+    private List<Double> boxedLongMA;
+    private List<IndicatorPipeline.Indicator> averages;
+
+    @Setup
+    public void setUp() {
+        shortPeriod = longPeriod / 5;
+        prices = SyntheticData.prices(size, 42);
+        boxedPrices = SyntheticData.boxed(prices);
+        shortMA = MovingAverageEngine.simpleMovingAverage(prices, shortPeriod, longPeriod - 1);
+        longMA = MovingAverageEngine.simpleMovingAverage(prices, longPeriod);
+        // The reference signals expect the short average trimmed to the long one
+        List<Double> fullShort = FinanceAnalyzer.calculateMovingAverage(boxedPrices, shortPeriod);
+        boxedShortMA = fullShort.subList(longPeriod - shortPeriod, fullShort.size());
+        boxedLongMA = FinanceAnalyzer.calculateMovingAverage(boxedPrices, longPeriod);
+        averages = IndicatorPipeline.parseList("sma:" + shortPeriod + ",sma:" + longPeriod);
+    }
+
+    @Benchmark
+    public List<Double> referenceMovingAverage() {
+        return FinanceAnalyzer.calculateMovingAverage(boxedPrices, longPeriod);
+    }
+
+    @Benchmark
+    public double[] movingAverage() {
+        return MovingAverageEngine.simpleMovingAverage(prices, longPeriod);
+    }
+
+    @Benchmark
+    public List<String> referenceSignals() {
+        return FinanceAnalyzer.generateTradingSignals(boxedShortMA, boxedLongMA);
+    }
+
+    @Benchmark
+    public Signal[] signals() {
+        return FinanceAnalyzer.generateTradingSignals(shortMA, longMA);
+    }
+
+    @Benchmark
+    public void twoPassAverages(Blackhole blackhole) {
+        blackhole.consume(MovingAverageEngine.simpleMovingAverage(prices, shortPeriod, longPeriod - 1));
+        blackhole.consume(MovingAverageEngine.simpleMovingAverage(prices, longPeriod));
+    }
+
+    @Benchmark
+    public IndicatorPipeline.Columns fusedAverages() {
+        return IndicatorPipeline.compute(prices, averages);
+    }
+}
@@ -0,0 +1,92 @@
+package finance;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Seeded generators for benchmark inputs, shaped like the repository's data files
+final class SyntheticData {
+    private SyntheticData() {}
+
+    // Geometric random walk from 100 with 1% daily volatility, as in stock_prices.csv
+    static double[] prices(int n, long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        double[] prices = new double[n];
+        double price = 100;
+        for (int i = 0; i < n; i++) {
+            price *= 1 + 0.01 * gaussian(rng);
+            prices[i] = Math.round(price * 100) / 100.0;
+        }
+        return prices;
+    }
+
+    // amount,date points around k blob centres, columns as in CsvLoader.ExpenseColumns
+    static CsvLoader.ExpenseColumns expenses(int n, int k, long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        double[] centreAmounts = new double[k];
+        double[] centreDates = new double[k];
+        for (int j = 0; j < k; j++) {
+            centreAmounts[j] = rng.nextDouble(10, 2000);
+            centreDates[j] = rng.nextDouble(1, 365);
+        }
+        double[] amounts = new double[n];
+        double[] dates = new double[n];
+        for (int i = 0; i < n; i++) {
+            int j = rng.nextInt(k);
+            amounts[i] = Math.round((centreAmounts[j] + 40 * gaussian(rng)) * 100) / 100.0;
+            dates[i] = Math.round(centreDates[j] + 10 * gaussian(rng));
+        }
+        return new CsvLoader.ExpenseColumns(amounts, dates);
+    }
+
+    // Balances of $500-$20,000 at 3-30% annual rates; the payment is enough for any payoff order
+    static double[][] debts(int n, long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        double[][] debts = new double[2][n];
+        for (int i = 0; i < n; i++) {
+            debts[0][i] = Math.round(rng.nextDouble(500, 20_000) * 100) / 100.0;
+            debts[1][i] = Math.round(rng.nextDouble(0.03, 0.30) * 10_000) / 10_000.0;
+        }
+        return debts;
+    }
+
+    static double debtPayment(double[][] debts) {
+        double interest = 0;
+        for (int i = 0; i < debts[0].length; i++) interest += debts[0][i] * debts[1][i] / 12;
+        return Math.ceil(interest * 3);
+    }
+
+    static List<Double> boxed(double[] values) {
+        List<Double> list = new ArrayList<>(values.length);
+        for (double value : values) list.add(value);
+        return list;
+    }
+
+    static void writePrices(double[] prices, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (double price : prices) {
+                writer.write(Double.toString(price));
+                writer.newLine();
+            }
+        }
+    }
+
+    static void writeExpenses(CsvLoader.ExpenseColumns expenses, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < expenses.size(); i++) {
+                writer.write(expenses.amounts()[i] + "," + expenses.dates()[i]);
+                writer.newLine();
+            }
+        }
+    }
+
+    private static double gaussian(SplittableRandom rng) {
+        // Box-Muller, so the data does not depend on the JDK's nextGaussian implementation
+        double u = 1 - rng.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * rng.nextDouble());
+    }
+}